@@ -0,0 +1,105 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Finds the permutation that would sort an array, without moving anything in the array itself:  values[order[0]] is
+ * the smallest value, values[order[1]] the next, and so on.  Applying that permutation to several parallel arrays with
+ * {@link #permute} reorders whole records at once, without boxing them into objects first.
+ *
+ * Every sort here is stable:  indexes of equal values come out in ascending order.  Ints, longs and doubles are all
+ * widened into one long[] of keys that sorts the same way, so there's only one sort:
+ *
+ *  -   Ints and longs are their own keys.
+ *  -   A double's bits already sort correctly for positive values, and in reverse for negative ones, so the keys are
+ *      the bits with everything but the sign flipped for negative values.  That puts -0.0 before 0.0 and NaN after
+ *      everything else, the same order as {@link DoubleSorter}.
+ *
+ * The keys are then sorted by {@link LongKeyPayloadSort}, with each key's index as its payload.  The parallel variant,
+ * created with a {@link ForkJoinPool}, splits the sorts and merges across the pool.
+ */
+public class ArgSort {
+
+    private static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 13;
+
+    private final LongKeyPayloadSort sorter;
+
+    /**
+     * Creates a sorter that runs on the calling thread.
+     */
+    public ArgSort() {
+        this(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a sorter that splits large arrays across the pool.
+     */
+    public ArgSort(ForkJoinPool pool) {
+        this(pool, DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /* pp */ ArgSort(ForkJoinPool pool, int sequentialThreshold) {
+        sorter = new LongKeyPayloadSort(pool, sequentialThreshold);
+    }
+
+    public int[] argSort(int[] values) {
+        final long[] keys = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = values[i];
+        }
+        return sortIndexes(keys);
+    }
+
+    public int[] argSort(long[] values) {
+        return sortIndexes(values.clone());
+    }
+
+    public int[] argSort(double[] values) {
+        final long[] keys = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            // Canonicalizes NaNs, so that they all sort together
+            final long bits = Double.doubleToLongBits(values[i]);
+            keys[i] = bits ^ (bits >> 63 & Long.MAX_VALUE);
+        }
+        return sortIndexes(keys);
+    }
+
+    /**
+     * Returns a copy of the column with column[order[i]] at position i.
+     */
+    public static int[] permute(int[] column, int[] order) {
+        final int[] permuted = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            permuted[i] = column[order[i]];
+        }
+        return permuted;
+    }
+
+    public static long[] permute(long[] column, int[] order) {
+        final long[] permuted = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            permuted[i] = column[order[i]];
+        }
+        return permuted;
+    }
+
+    public static double[] permute(double[] column, int[] order) {
+        final double[] permuted = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            permuted[i] = column[order[i]];
+        }
+        return permuted;
+    }
+
+    /**
+     * Sorts the keys, which this owns, and returns where each one came from.
+     */
+    private int[] sortIndexes(long[] keys) {
+        final int[] indexes = new int[keys.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        sorter.sort(keys, indexes);
+        return indexes;
+    }
+}
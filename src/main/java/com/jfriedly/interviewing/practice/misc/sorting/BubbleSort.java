@@ -4,8 +4,14 @@ public class BubbleSort implements Sorter {
 
     @Override
     public void sort(int[] array) {
-        for (int i = 0; i < array.length; i++) {
-            for (int j = array.length - 1; j > i; j--) {
+        sort(array, 0, array.length);
+    }
+
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        for (int i = from; i < to; i++) {
+            for (int j = to - 1; j > i; j--) {
                 if (array[j] < array[j - 1]) {
                     swap(array, j, j - 1);
                 }
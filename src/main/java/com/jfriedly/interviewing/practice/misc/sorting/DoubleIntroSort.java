@@ -0,0 +1,172 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * {@link IntroSort} for double[]s, such as scores, in the order described by {@link DoubleSorter}.
+ *
+ * Comparing doubles with {@code <} is fast, but it doesn't give a total order:  NaN is neither smaller nor larger than
+ * anything, and -0.0 == 0.0.  Rather than paying for {@link Double#compare} on every comparison, this does what
+ * {@link java.util.Arrays#sort(double[])} does:
+ *
+ *  1)  Move the NaNs to the end of the range, and count the negative zeros along the way.
+ *  2)  Sort everything else with {@code <}, just like {@link LongIntroSort}.  Zeros of either sign end up together.
+ *  3)  Binary search for the zeros, and rewrite them as the right number of -0.0s followed by 0.0s.
+ */
+public class DoubleIntroSort implements DoubleSorter {
+
+    private static final int INSERTION_THRESHOLD = 24;
+    private static final int NINTHER_THRESHOLD = 128;
+    private static final int DEPTH_FACTOR = 2;
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+
+    @Override
+    public void sort(double[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        int end = to;
+        int negativeZeros = 0;
+        for (int i = to - 1; i >= from; i--) {
+            final double value = array[i];
+            if (value != value) {
+                // NaN, the only value that isn't equal to itself
+                array[i] = array[--end];
+                array[end] = value;
+            } else if (Double.doubleToRawLongBits(value) == NEGATIVE_ZERO_BITS) {
+                negativeZeros++;
+            }
+        }
+        introsort(array, from, end, DEPTH_FACTOR * Ranges.log2(end - from));
+        if (negativeZeros > 0) {
+            int zero = lowerBound(array, from, end, 0.0);
+            for (int i = 0; zero < end && array[zero] == 0.0; i++, zero++) {
+                array[zero] = i < negativeZeros ? -0.0 : 0.0;
+            }
+        }
+    }
+
+    /**
+     * Returns the first index in array[start, end) whose value is at least key, or end if there isn't one.
+     */
+    private static int lowerBound(double[] array, int start, int end, double key) {
+        while (start < end) {
+            final int mid = (start + end) >>> 1;
+            if (array[mid] < key) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+
+    private static void introsort(double[] array, int start, int end, int depthLimit) {
+        while (end - start > INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(array, start, end);
+                return;
+            }
+            depthLimit--;
+            final double pivot = array[choosePivot(array, start, end)];
+            // Invariant:  [start, less) < pivot, [less, i) == pivot, [i, greater) unseen, [greater, end) > pivot
+            int less = start;
+            int i = start;
+            int greater = end;
+            while (i < greater) {
+                final double value = array[i];
+                if (value < pivot) {
+                    swap(array, less++, i++);
+                } else if (value > pivot) {
+                    swap(array, i, --greater);
+                } else {
+                    i++;
+                }
+            }
+            if (less - start < end - greater) {
+                introsort(array, start, less, depthLimit);
+                start = greater;
+            } else {
+                introsort(array, greater, end, depthLimit);
+                end = less;
+            }
+        }
+        insertionSort(array, start, end);
+    }
+
+    private static int choosePivot(double[] array, int start, int end) {
+        final int last = end - 1;
+        final int mid = (start + last) >>> 1;
+        if (end - start < NINTHER_THRESHOLD) {
+            return medianOfThree(array, start, mid, last);
+        }
+        final int step = (end - start) / 8;
+        return medianOfThree(array,
+                medianOfThree(array, start, start + step, start + 2 * step),
+                medianOfThree(array, mid - step, mid, mid + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    private static int medianOfThree(double[] array, int a, int b, int c) {
+        if (array[a] < array[b]) {
+            if (array[b] < array[c]) {
+                return b;
+            }
+            return array[a] < array[c] ? c : a;
+        }
+        if (array[a] < array[c]) {
+            return a;
+        }
+        return array[b] < array[c] ? c : b;
+    }
+
+    private static void insertionSort(double[] array, int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            final double key = array[i];
+            int j = i;
+            while (j > start && array[j - 1] > key) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = key;
+        }
+    }
+
+    /**
+     * {@link InPlaceHeapSort}, over array[start, end).
+     */
+    private static void heapSort(double[] array, int start, int end) {
+        final int size = end - start;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(array, start, i, size, array[start + i]);
+        }
+        for (int heapSize = size - 1; heapSize > 0; heapSize--) {
+            final double last = array[start + heapSize];
+            array[start + heapSize] = array[start];
+            siftDown(array, start, 0, heapSize, last);
+        }
+    }
+
+    private static void siftDown(double[] array, int offset, int root, int size, double value) {
+        int hole = root;
+        int child;
+        while ((child = 2 * hole + 1) < size) {
+            if (child + 1 < size && array[offset + child + 1] > array[offset + child]) {
+                child++;
+            }
+            array[offset + hole] = array[offset + child];
+            hole = child;
+        }
+        while (hole > root) {
+            final int parent = (hole - 1) / 2;
+            if (array[offset + parent] >= value) {
+                break;
+            }
+            array[offset + hole] = array[offset + parent];
+            hole = parent;
+        }
+        array[offset + hole] = value;
+    }
+
+    private static void swap(double[] array, int first, int second) {
+        final double temp = array[first];
+        array[first] = array[second];
+        array[second] = temp;
+    }
+}
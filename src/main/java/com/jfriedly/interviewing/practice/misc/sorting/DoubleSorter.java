@@ -0,0 +1,19 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * Sorts double[]s in ascending order, without boxing them.
+ *
+ * The order is the same as {@link java.util.Arrays#sort(double[])}'s, which is {@link Double#compare}'s:  -0.0 comes
+ * before 0.0, and NaNs come after everything else, even positive infinity.
+ */
+public interface DoubleSorter {
+
+    default void sort(double[] array) {
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts array[from, to), leaving the rest of the array alone.
+     */
+    void sort(double[] array, int from, int to);
+}
@@ -0,0 +1,356 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts a binary file of ints that may be much larger than the heap.
+ *
+ * The file is a flat sequence of 4-byte ints, little-endian by default, with no header.  Sorting it takes two phases:
+ *
+ *  1)  Run generation:  the file is cut into runs of a fixed number of ints.  Each run is read through a memory-mapped
+ *      {@link IntBuffer}, sorted in memory with another {@link Sorter}, and written to its own temporary file.  Runs
+ *      are independent, so they're sorted in parallel on a {@link ForkJoinPool}; each worker holds one run at a time,
+ *      so the heap needs room for about parallelism * runLength ints.
+ *  2)  Merging:  a k-way merge reads every run through its own small buffer and repeatedly writes out the smallest
+ *      head, found with a heap of runs keyed by their heads.  All reads and writes are sequential.  If there are more
+ *      runs than the fan-in limit, groups of them are merged into longer runs first, so that the buffers never take
+ *      more than maxFanIn * {@link #BUFFER_BYTES} bytes.
+ *
+ * A file that fits in a single run is sorted in memory and written straight out.  Temporary files are deleted when
+ * the sort finishes, whether or not it succeeds.  The input is read in full before the output is written, so they may
+ * be the same file.
+ */
+public class ExternalMergeSort {
+
+    // 64 MB of ints per run
+    public static final int DEFAULT_RUN_LENGTH = 1 << 24;
+    public static final int DEFAULT_MAX_FAN_IN = 64;
+    // A run has to fit in a single mapping
+    public static final int MAX_RUN_LENGTH = Integer.MAX_VALUE / Integer.BYTES;
+    // Per run while merging, and for the output
+    public static final int BUFFER_BYTES = 1 << 18;
+
+    private final Sorter sorter;
+    private final int runLength;
+    private final int maxFanIn;
+    private final ByteOrder order;
+    private final ForkJoinPool pool;
+    private final Path tempDirectory;
+
+    public ExternalMergeSort() {
+        this(new IntroSort(), DEFAULT_RUN_LENGTH, ForkJoinPool.commonPool(),
+                Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    public ExternalMergeSort(Sorter sorter, int runLength, ForkJoinPool pool, Path tempDirectory) {
+        this(sorter, runLength, DEFAULT_MAX_FAN_IN, ByteOrder.LITTLE_ENDIAN, pool, tempDirectory);
+    }
+
+    /**
+     * @param sorter        sorts each run in memory.  It's called from several threads at once.
+     * @param runLength     ints per run
+     * @param maxFanIn      the most runs merged at once
+     * @param order         the byte order of the ints in the input, the output, and the temporary files
+     * @param pool          runs the run generation
+     * @param tempDirectory holds the runs until they're merged
+     */
+    public ExternalMergeSort(Sorter sorter, int runLength, int maxFanIn, ByteOrder order, ForkJoinPool pool,
+                             Path tempDirectory) {
+        if (runLength < 1 || runLength > MAX_RUN_LENGTH) {
+            throw new IllegalArgumentException("Runs must hold between 1 and " + MAX_RUN_LENGTH + " ints, got "
+                    + runLength);
+        }
+        if (maxFanIn < 2) {
+            throw new IllegalArgumentException("Merges need at least two runs, got " + maxFanIn);
+        }
+        this.sorter = sorter;
+        this.runLength = runLength;
+        this.maxFanIn = maxFanIn;
+        this.order = order;
+        this.pool = pool;
+        this.tempDirectory = tempDirectory;
+    }
+
+    /**
+     * Writes the ints in the input file to the output file in ascending order, replacing anything already there.
+     */
+    public void sort(Path input, Path output) throws IOException {
+        final long n;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            if (channel.size() % Integer.BYTES != 0) {
+                throw new IllegalArgumentException(input + " has " + channel.size()
+                        + " bytes, which isn't a whole number of ints");
+            }
+            n = channel.size() / Integer.BYTES;
+        }
+        final int runCount = (int) ((n + runLength - 1) / runLength);
+        if (runCount <= 1) {
+            final int[] values = read(input, 0, (int) n);
+            sorter.sort(values);
+            try (IntWriter writer = new IntWriter(output, true)) {
+                writer.write(values, values.length);
+            }
+            return;
+        }
+
+        final List<Path> temporaryFiles = new ArrayList<>();
+        try {
+            List<Path> runs = new ArrayList<>(runCount);
+            for (int i = 0; i < runCount; i++) {
+                runs.add(createTemporaryFile(temporaryFiles));
+            }
+            generateRuns(input, n, runs);
+            while (runs.size() > maxFanIn) {
+                final List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += maxFanIn) {
+                    final List<Path> group = runs.subList(i, Math.min(i + maxFanIn, runs.size()));
+                    final Path destination = createTemporaryFile(temporaryFiles);
+                    merge(group, destination, false);
+                    for (Path run : group) {
+                        Files.delete(run);
+                    }
+                    merged.add(destination);
+                }
+                runs = merged;
+            }
+            merge(runs, output, true);
+        } finally {
+            for (Path path : temporaryFiles) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private Path createTemporaryFile(List<Path> temporaryFiles) throws IOException {
+        final Path path = Files.createTempFile(tempDirectory, "run", ".bin");
+        temporaryFiles.add(path);
+        return path;
+    }
+
+    private void generateRuns(Path input, long n, List<Path> runs) throws IOException {
+        try {
+            pool.invoke(new RunTask(0, runs.size(), run -> {
+                final long first = (long) run * runLength;
+                final int[] values = read(input, first, (int) Math.min(runLength, n - first));
+                sorter.sort(values);
+                try (IntWriter writer = new IntWriter(runs.get(run), false)) {
+                    writer.write(values, values.length);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads count ints from the file, starting from the first-th one.
+     */
+    private int[] read(Path path, long first, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final int[] values = new int[count];
+            if (count > 0) {
+                channel.map(FileChannel.MapMode.READ_ONLY, first * Integer.BYTES, (long) count * Integer.BYTES)
+                        .order(order)
+                        .asIntBuffer()
+                        .get(values);
+            }
+            return values;
+        }
+    }
+
+    /**
+     * Merges the sorted runs into the destination with a min-heap of the runs, keyed by the next int in each.  The
+     * destination is only created if create is set.
+     */
+    private void merge(List<Path> runs, Path destination, boolean create) throws IOException {
+        final IntReader[] readers = new IntReader[runs.size()];
+        try (IntWriter writer = new IntWriter(destination, create)) {
+            final int[] heads = new int[readers.length];
+            final int[] heap = new int[readers.length];
+            int size = 0;
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new IntReader(runs.get(i));
+                if (readers[i].hasNext()) {
+                    heads[i] = readers[i].next();
+                    heap[size++] = i;
+                }
+            }
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heads, i, size);
+            }
+            while (size > 0) {
+                final int run = heap[0];
+                writer.write(heads[run]);
+                if (readers[run].hasNext()) {
+                    heads[run] = readers[run].next();
+                } else {
+                    heap[0] = heap[--size];
+                }
+                siftDown(heap, heads, 0, size);
+            }
+        } finally {
+            for (IntReader reader : readers) {
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    private static void siftDown(int[] heap, int[] heads, int i, int size) {
+        final int run = heap[i];
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && heads[heap[child + 1]] < heads[heap[child]]) {
+                child++;
+            }
+            if (heads[heap[child]] >= heads[run]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = run;
+    }
+
+    /**
+     * Reads ints from a file sequentially, a buffer at a time.
+     */
+    private class IntReader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final IntBuffer ints;
+
+        private IntReader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            bytes.order(order);
+            ints = bytes.asIntBuffer();
+            ints.limit(0);
+        }
+
+        private boolean hasNext() throws IOException {
+            if (ints.hasRemaining()) {
+                return true;
+            }
+            bytes.clear();
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // Keep reading until the buffer is full or the file runs out
+            }
+            ints.position(0).limit(bytes.position() / Integer.BYTES);
+            return ints.hasRemaining();
+        }
+
+        private int next() {
+            return ints.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes ints to a file sequentially, a buffer at a time, replacing whatever was in it.
+     *
+     * Temporary files already exist by the time anything writes to them, so they're opened without CREATE.  A run
+     * task that a failed sort's cleanup has raced past then fails to open its deleted file, rather than recreating
+     * it and leaving it behind.
+     */
+    private class IntWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final IntBuffer ints;
+
+        private IntWriter(Path path, boolean create) throws IOException {
+            channel = create
+                    ? FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.WRITE)
+                    : FileChannel.open(path, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            bytes.order(order);
+            ints = bytes.asIntBuffer();
+        }
+
+        private void write(int value) throws IOException {
+            if (!ints.hasRemaining()) {
+                flush();
+            }
+            ints.put(value);
+        }
+
+        private void write(int[] values, int count) throws IOException {
+            for (int written = 0; written < count; ) {
+                if (!ints.hasRemaining()) {
+                    flush();
+                }
+                final int chunk = Math.min(count - written, ints.remaining());
+                ints.put(values, written, chunk);
+                written += chunk;
+            }
+        }
+
+        private void flush() throws IOException {
+            bytes.position(0).limit(ints.position() * Integer.BYTES);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            ints.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Sorts runs [lo, hi), splitting the range in half until there's one run left.
+     */
+    private static class RunTask extends RecursiveAction {
+        private final int lo;
+        private final int hi;
+        private final RunAction action;
+
+        private RunTask(int lo, int hi, RunAction action) {
+            this.lo = lo;
+            this.hi = hi;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                try {
+                    action.run(lo);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            final int mid = (lo + hi) >>> 1;
+            invokeAll(new RunTask(lo, mid, action), new RunTask(mid, hi, action));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RunAction {
+        void run(int run) throws IOException;
+    }
+}
@@ -4,13 +4,23 @@ public class HeapSort implements Sorter {
 
     @Override
     public void sort(int[] array) {
-        final int[] heap = new int[array.length];
-        for (int i = 0; i < array.length; i++) {
-            minHeapInsert(heap, i, array[i]);
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts array[from, to) through a separate heap the size of the range.
+     */
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        final int size = to - from;
+        final int[] heap = new int[size];
+        for (int i = 0; i < size; i++) {
+            minHeapInsert(heap, i, array[from + i]);
         }
         // Once everything's in the heap, we can get them back out and put them in the array in sorted order
-        for (int i = 0; i < array.length; i++) {
-            array[i] = minHeapRemoveRoot(heap, array.length - i);
+        for (int i = 0; i < size; i++) {
+            array[from + i] = minHeapRemoveRoot(heap, size - i);
         }
     }
 
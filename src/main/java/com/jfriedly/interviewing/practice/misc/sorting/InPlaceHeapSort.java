@@ -0,0 +1,72 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * Heapsort that builds its heap inside the array being sorted, so it needs no memory beyond a few locals.
+ *
+ * {@link HeapSort} inserts every element into a second array, one sift-up at a time, which takes O(n log n) just to
+ * build the heap.  This builds a max-heap in place instead, bottom up (Floyd 1964):  each subtree's root is sifted
+ * down into the heaps already built below it.  Most subtrees are tiny, so that's O(n) in total.  Then the root, the
+ * largest element, is repeatedly swapped to the end of the shrinking heap.
+ *
+ * The element that takes the root's place came from the bottom of the heap, so it almost always belongs near the
+ * bottom again.  Rather than comparing it against the larger child at every level, the hole left at the root is
+ * moved straight down to a leaf along the path of larger children, using one comparison per level, and then the
+ * element bounces back up from that leaf to where it belongs, which is usually only a level or two (Wegener 1993).
+ *
+ * The worst case is O(n log n) and the extra memory is O(1), on any input.
+ */
+public class InPlaceHeapSort implements Sorter {
+
+    @Override
+    public void sort(int[] array) {
+        heapSort(array, 0, array.length);
+    }
+
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        heapSort(array, from, to);
+    }
+
+    /**
+     * Sorts array[start, end), leaving the rest of the array alone.
+     */
+    /* pp */ static void heapSort(int[] array, int start, int end) {
+        final int size = end - start;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(array, start, i, size, array[start + i]);
+        }
+        for (int heapSize = size - 1; heapSize > 0; heapSize--) {
+            final int last = array[start + heapSize];
+            array[start + heapSize] = array[start];
+            siftDown(array, start, 0, heapSize, last);
+        }
+    }
+
+    /**
+     * Places value in the subtree rooted at position root of the heap that starts at offset and holds size elements,
+     * whose root is currently a hole.  Both of root's subtrees must already be heaps.
+     */
+    private static void siftDown(int[] array, int offset, int root, int size, int value) {
+        // Move the hole down to a leaf, pulling the larger child up at each level
+        int hole = root;
+        int child;
+        while ((child = 2 * hole + 1) < size) {
+            if (child + 1 < size && array[offset + child + 1] > array[offset + child]) {
+                child++;
+            }
+            array[offset + hole] = array[offset + child];
+            hole = child;
+        }
+        // Then bounce value back up until its parent is at least as large
+        while (hole > root) {
+            final int parent = (hole - 1) / 2;
+            if (array[offset + parent] >= value) {
+                break;
+            }
+            array[offset + hole] = array[offset + parent];
+            hole = parent;
+        }
+        array[offset + hole] = value;
+    }
+}
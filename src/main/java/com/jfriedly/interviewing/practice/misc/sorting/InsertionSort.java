@@ -7,16 +7,26 @@ public class InsertionSort implements Sorter {
         sortCountingInversions(array);
     }
 
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        sortCountingInversions(array, from, to);
+    }
+
     /**
      * Sort the array, but also count the number of inversions, as defined by CLRS Problem 2-4
      * Every time insertion sort shifts an element, that's one inversion.
      */
-    /* pp */ int sortCountingInversions(int[] array) {
-        int inversionCount = 0;
-        for (int i = 0; i < array.length; i++) {
+    /* pp */ long sortCountingInversions(int[] array) {
+        return sortCountingInversions(array, 0, array.length);
+    }
+
+    private long sortCountingInversions(int[] array, int from, int to) {
+        long inversionCount = 0;
+        for (int i = from; i < to; i++) {
             final int key = array[i];
             int j = i;
-            while (j > 0 && array[j - 1] > key) {
+            while (j > from && array[j - 1] > key) {
                 array[j] = array[j - 1];
                 inversionCount++;
                 j--;
@@ -0,0 +1,173 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * Quicksort hardened against the inputs that make {@link QuickSort} quadratic (Musser's introsort, Musser 1997).
+ *
+ *  -   The pivot is the median of three elements, or for large ranges, Tukey's ninther:  the median of the medians of
+ *      three groups of three, spread evenly across the range.  Sorted and reversed inputs get a pivot near the middle
+ *      instead of the largest or smallest element.
+ *  -   Partitioning is three-way (Dijkstra's Dutch national flag), so every element equal to the pivot is placed in
+ *      one pass and never looked at again.  An input that's all duplicates takes linear time.
+ *  -   Only the smaller side is sorted recursively; the loop carries on with the larger one.  That keeps the stack at
+ *      O(log n) frames no matter how unbalanced the partitions are.
+ *  -   If the partitions keep coming out unbalanced anyway, and the recursion gets deeper than 2 log n, the rest of
+ *      that range is heapsorted in place with {@link InPlaceHeapSort}, which caps the worst case at O(n log n).
+ *  -   Short ranges are insertion sorted, which beats partitioning them.
+ *
+ * {@link #select(int[], int)} is the same loop, except that it only carries on into the side that holds the element
+ * it's looking for (introselect), which takes expected O(n) time.
+ */
+public class IntroSort implements Sorter {
+
+    private static final int INSERTION_THRESHOLD = 24;
+    private static final int NINTHER_THRESHOLD = 128;
+    private static final int DEFAULT_DEPTH_FACTOR = 2;
+
+    private final int depthFactor;
+
+    public IntroSort() {
+        this(DEFAULT_DEPTH_FACTOR);
+    }
+
+    /**
+     * Creates a sorter that switches to heapsort after depthFactor * log2(n) partitions.  0 heapsorts everything.
+     */
+    /* pp */ IntroSort(int depthFactor) {
+        this.depthFactor = depthFactor;
+    }
+
+    @Override
+    public void sort(int[] array) {
+        sort(array, 0, array.length);
+    }
+
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        introsort(array, from, to, depthFactor * Ranges.log2(to - from));
+    }
+
+    /**
+     * Rearranges the array with introselect, in expected O(n) time and O(n log n) at worst.
+     */
+    @Override
+    public int select(int[] array, int k) {
+        if (k < 0 || k >= array.length) {
+            throw new IllegalArgumentException("Can't select element " + k + " of " + array.length);
+        }
+        int start = 0;
+        int end = array.length;
+        int depthLimit = depthFactor * Ranges.log2(array.length);
+        while (end - start > INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                InPlaceHeapSort.heapSort(array, start, end);
+                return array[k];
+            }
+            depthLimit--;
+            final long bounds = partition(array, start, end);
+            final int less = (int) (bounds >>> 32);
+            final int greater = (int) bounds;
+            if (k < less) {
+                end = less;
+            } else if (k >= greater) {
+                start = greater;
+            } else {
+                // k landed among the elements equal to the pivot, which are already in their final places
+                return array[k];
+            }
+        }
+        insertionSort(array, start, end);
+        return array[k];
+    }
+
+    /**
+     * Sorts array[start, end), falling back to heapsort once more than depthLimit partitions have been made above
+     * any part of it.
+     */
+    private void introsort(int[] array, int start, int end, int depthLimit) {
+        while (end - start > INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                InPlaceHeapSort.heapSort(array, start, end);
+                return;
+            }
+            depthLimit--;
+            final long bounds = partition(array, start, end);
+            final int less = (int) (bounds >>> 32);
+            final int greater = (int) bounds;
+            if (less - start < end - greater) {
+                introsort(array, start, less, depthLimit);
+                start = greater;
+            } else {
+                introsort(array, greater, end, depthLimit);
+                end = less;
+            }
+        }
+        insertionSort(array, start, end);
+    }
+
+    /**
+     * Partitions array[start, end) three ways around a pivot chosen from it, so that [start, less) holds the elements
+     * smaller than the pivot, [less, greater) the ones equal to it, and [greater, end) the larger ones.
+     *
+     * @return less in the upper 32 bits and greater in the lower 32 bits
+     */
+    private long partition(int[] array, int start, int end) {
+        final int pivot = array[choosePivot(array, start, end)];
+        // Invariant:  [start, less) < pivot, [less, i) == pivot, [i, greater) unseen, [greater, end) > pivot
+        int less = start;
+        int i = start;
+        int greater = end;
+        while (i < greater) {
+            final int value = array[i];
+            if (value < pivot) {
+                swap(array, less++, i++);
+            } else if (value > pivot) {
+                swap(array, i, --greater);
+            } else {
+                i++;
+            }
+        }
+        return (long) less << 32 | greater;
+    }
+
+    private static int choosePivot(int[] array, int start, int end) {
+        final int last = end - 1;
+        final int mid = (start + last) >>> 1;
+        if (end - start < NINTHER_THRESHOLD) {
+            return medianOfThree(array, start, mid, last);
+        }
+        final int step = (end - start) / 8;
+        return medianOfThree(array,
+                medianOfThree(array, start, start + step, start + 2 * step),
+                medianOfThree(array, mid - step, mid, mid + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    /**
+     * Returns whichever of the three indexes holds the median of their values.
+     */
+    private static int medianOfThree(int[] array, int a, int b, int c) {
+        if (array[a] < array[b]) {
+            if (array[b] < array[c]) {
+                return b;
+            }
+            return array[a] < array[c] ? c : a;
+        }
+        if (array[a] < array[c]) {
+            return a;
+        }
+        return array[b] < array[c] ? c : b;
+    }
+
+    private static void insertionSort(int[] array, int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            final int key = array[i];
+            int j = i;
+            while (j > start && array[j - 1] > key) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = key;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Counts inversions, as defined by CLRS Problem 2-4:  pairs of indexes i < j where array[i] > array[j].
+ *
+ * The count is the number of swaps of adjacent elements it takes to sort the array, which makes it a measure of how
+ * far from sorted the array is; for a permutation of ranks, it's the Kendall tau distance from the identity.  An
+ * array of n elements can have up to n (n - 1) / 2 of them, so the count is a long.
+ *
+ * {@link MergeSort#mergeSortCountingInversions(int[])} and {@link InsertionSort#sortCountingInversions(int[])} sort
+ * the array they count.  These methods count a copy instead, using {@link ParallelMergeSort}.
+ */
+public final class Inversions {
+
+    private Inversions() {
+    }
+
+    /**
+     * Returns the number of inversions in the array, without modifying it.
+     */
+    public static long count(int[] array) {
+        return count(array, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the number of inversions in the array, without modifying it, using the threads in the pool.
+     */
+    public static long count(int[] array, ForkJoinPool pool) {
+        return new ParallelMergeSort(pool).sortCountingInversions(Arrays.copyOf(array, array.length));
+    }
+}
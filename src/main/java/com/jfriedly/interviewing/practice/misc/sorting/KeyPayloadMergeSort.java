@@ -0,0 +1,102 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.util.Arrays;
+
+/**
+ * Sorts records stored as two parallel arrays, int keys and an int payload, by key:  whatever moves keys[i] moves
+ * payload[i] along with it.  The payload is usually a row index into other columns of the same records.
+ *
+ * This is a stable merge sort, so records with equal keys keep their relative order, just like
+ * {@link java.util.Collections#sort} on boxed records would.  Like {@link ParallelMergeSort}, it copies the range into
+ * one pair of scratch arrays up front and then merges back and forth between them and the input, so nothing else is
+ * allocated; short ranges are insertion sorted.
+ */
+public class KeyPayloadMergeSort {
+
+    private static final int INSERTION_THRESHOLD = 32;
+
+    public void sort(int[] keys, int[] payload) {
+        sort(keys, payload, 0, keys.length);
+    }
+
+    /**
+     * Sorts keys[from, to) and applies the same permutation to payload[from, to).  The payload must be at least as long
+     * as the keys.
+     */
+    public void sort(int[] keys, int[] payload, int from, int to) {
+        Ranges.check(keys.length, from, to);
+        Ranges.check(payload.length, from, to);
+        final int[] scratchKeys = Arrays.copyOfRange(keys, from, to);
+        final int[] scratchPayload = Arrays.copyOfRange(payload, from, to);
+        new Merger(keys, payload, from, scratchKeys, scratchPayload).sort(scratchKeys, scratchPayload, 0, to - from);
+    }
+
+    /**
+     * The input range and the scratch arrays, which hold the same records at offsets from and 0.  Positions passed
+     * around are relative to the start of the range.
+     */
+    private static class Merger {
+        private final int[] keys;
+        private final int[] payload;
+        private final int from;
+        private final int[] scratchKeys;
+        private final int[] scratchPayload;
+
+        private Merger(int[] keys, int[] payload, int from, int[] scratchKeys, int[] scratchPayload) {
+            this.keys = keys;
+            this.payload = payload;
+            this.from = from;
+            this.scratchKeys = scratchKeys;
+            this.scratchPayload = scratchPayload;
+        }
+
+        /**
+         * Sorts positions [start, end) into whichever of the input or the scratch arrays isn't source, given that
+         * both hold the same records there.
+         */
+        private void sort(int[] sourceKeys, int[] sourcePayload, int start, int end) {
+            final boolean intoInput = sourceKeys == scratchKeys;
+            final int[] destinationKeys = intoInput ? keys : scratchKeys;
+            final int[] destinationPayload = intoInput ? payload : scratchPayload;
+            final int destinationOffset = intoInput ? from : 0;
+            if (end - start <= INSERTION_THRESHOLD) {
+                insertionSort(destinationKeys, destinationPayload, destinationOffset + start, destinationOffset + end);
+                return;
+            }
+            final int mid = (start + end) >>> 1;
+            // Sort each half into source, then merge the halves from there into destination
+            sort(destinationKeys, destinationPayload, start, mid);
+            sort(destinationKeys, destinationPayload, mid, end);
+            final int sourceOffset = intoInput ? 0 : from;
+            int i = sourceOffset + start;
+            int j = sourceOffset + mid;
+            final int leftEnd = sourceOffset + mid;
+            final int rightEnd = sourceOffset + end;
+            for (int k = destinationOffset + start; k < destinationOffset + end; k++) {
+                // Take from the left on ties, which is what keeps the sort stable
+                if (j >= rightEnd || (i < leftEnd && sourceKeys[i] <= sourceKeys[j])) {
+                    destinationKeys[k] = sourceKeys[i];
+                    destinationPayload[k] = sourcePayload[i++];
+                } else {
+                    destinationKeys[k] = sourceKeys[j];
+                    destinationPayload[k] = sourcePayload[j++];
+                }
+            }
+        }
+
+        private static void insertionSort(int[] keys, int[] payload, int start, int end) {
+            for (int i = start + 1; i < end; i++) {
+                final int key = keys[i];
+                final int value = payload[i];
+                int j = i;
+                while (j > start && keys[j - 1] > key) {
+                    keys[j] = keys[j - 1];
+                    payload[j] = payload[j - 1];
+                    j--;
+                }
+                keys[j] = key;
+                payload[j] = value;
+            }
+        }
+    }
+}
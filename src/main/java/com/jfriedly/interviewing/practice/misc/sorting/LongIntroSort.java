@@ -0,0 +1,134 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * {@link IntroSort} for long[]s, such as timestamps:  ninther pivots, three-way partitioning, recursion on the smaller
+ * side only, insertion sort for short ranges, and an in-place heapsort once the recursion gets too deep.
+ *
+ * Java generics can't abstract over primitive types, so this is the same algorithm written out again for longs, the
+ * way {@link java.util.Arrays} does it.
+ */
+public class LongIntroSort implements LongSorter {
+
+    private static final int INSERTION_THRESHOLD = 24;
+    private static final int NINTHER_THRESHOLD = 128;
+    private static final int DEPTH_FACTOR = 2;
+
+    @Override
+    public void sort(long[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        introsort(array, from, to, DEPTH_FACTOR * Ranges.log2(to - from));
+    }
+
+    private static void introsort(long[] array, int start, int end, int depthLimit) {
+        while (end - start > INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(array, start, end);
+                return;
+            }
+            depthLimit--;
+            final long pivot = array[choosePivot(array, start, end)];
+            // Invariant:  [start, less) < pivot, [less, i) == pivot, [i, greater) unseen, [greater, end) > pivot
+            int less = start;
+            int i = start;
+            int greater = end;
+            while (i < greater) {
+                final long value = array[i];
+                if (value < pivot) {
+                    swap(array, less++, i++);
+                } else if (value > pivot) {
+                    swap(array, i, --greater);
+                } else {
+                    i++;
+                }
+            }
+            if (less - start < end - greater) {
+                introsort(array, start, less, depthLimit);
+                start = greater;
+            } else {
+                introsort(array, greater, end, depthLimit);
+                end = less;
+            }
+        }
+        insertionSort(array, start, end);
+    }
+
+    private static int choosePivot(long[] array, int start, int end) {
+        final int last = end - 1;
+        final int mid = (start + last) >>> 1;
+        if (end - start < NINTHER_THRESHOLD) {
+            return medianOfThree(array, start, mid, last);
+        }
+        final int step = (end - start) / 8;
+        return medianOfThree(array,
+                medianOfThree(array, start, start + step, start + 2 * step),
+                medianOfThree(array, mid - step, mid, mid + step),
+                medianOfThree(array, last - 2 * step, last - step, last));
+    }
+
+    private static int medianOfThree(long[] array, int a, int b, int c) {
+        if (array[a] < array[b]) {
+            if (array[b] < array[c]) {
+                return b;
+            }
+            return array[a] < array[c] ? c : a;
+        }
+        if (array[a] < array[c]) {
+            return a;
+        }
+        return array[b] < array[c] ? c : b;
+    }
+
+    private static void insertionSort(long[] array, int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            final long key = array[i];
+            int j = i;
+            while (j > start && array[j - 1] > key) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = key;
+        }
+    }
+
+    /**
+     * {@link InPlaceHeapSort}, over array[start, end).
+     */
+    private static void heapSort(long[] array, int start, int end) {
+        final int size = end - start;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(array, start, i, size, array[start + i]);
+        }
+        for (int heapSize = size - 1; heapSize > 0; heapSize--) {
+            final long last = array[start + heapSize];
+            array[start + heapSize] = array[start];
+            siftDown(array, start, 0, heapSize, last);
+        }
+    }
+
+    private static void siftDown(long[] array, int offset, int root, int size, long value) {
+        int hole = root;
+        int child;
+        while ((child = 2 * hole + 1) < size) {
+            if (child + 1 < size && array[offset + child + 1] > array[offset + child]) {
+                child++;
+            }
+            array[offset + hole] = array[offset + child];
+            hole = child;
+        }
+        while (hole > root) {
+            final int parent = (hole - 1) / 2;
+            if (array[offset + parent] >= value) {
+                break;
+            }
+            array[offset + hole] = array[offset + parent];
+            hole = parent;
+        }
+        array[offset + hole] = value;
+    }
+
+    private static void swap(long[] array, int first, int second) {
+        final long temp = array[first];
+        array[first] = array[second];
+        array[second] = temp;
+    }
+}
@@ -0,0 +1,205 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort of long keys that carries an int payload along with them:  whatever moves keys[i] moves payload[i]
+ * too.  This is the sort behind {@link ArgSort}, which maps each kind of key to a long that sorts the same way.
+ *
+ * Like {@link ParallelMergeSort}, it merges back and forth between the input and one pair of scratch arrays, and splits
+ * large sorts and merges across a {@link ForkJoinPool}.  Short ranges are insertion sorted.  Equal keys keep their
+ * relative order.
+ */
+class LongKeyPayloadSort {
+
+    private static final int INSERTION_THRESHOLD = 32;
+
+    private final ForkJoinPool pool;
+    // Ranges smaller than this are sorted, or merged, on the current thread
+    private final int sequentialThreshold;
+
+    LongKeyPayloadSort(ForkJoinPool pool, int sequentialThreshold) {
+        this.pool = pool;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    /**
+     * Sorts the keys, and the payload along with them.  Both arrays must be the same length.
+     */
+    void sort(long[] keys, int[] payload) {
+        final int n = keys.length;
+        final SortTask task = new SortTask(keys, payload, new long[n], new int[n], 0, n, false);
+        if (n < sequentialThreshold) {
+            task.sortSequentially(0, n, false);
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * Sorts records [start, end) and leaves the result in the same positions of either the main arrays or the scratch
+     * arrays, depending on intoScratch.
+     */
+    private class SortTask extends RecursiveAction {
+        private final long[] keys;
+        private final int[] payload;
+        private final long[] scratchKeys;
+        private final int[] scratchPayload;
+        private final int start;
+        private final int end;
+        private final boolean intoScratch;
+
+        private SortTask(long[] keys, int[] payload, long[] scratchKeys, int[] scratchPayload, int start, int end,
+                         boolean intoScratch) {
+            this.keys = keys;
+            this.payload = payload;
+            this.scratchKeys = scratchKeys;
+            this.scratchPayload = scratchPayload;
+            this.start = start;
+            this.end = end;
+            this.intoScratch = intoScratch;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start < sequentialThreshold) {
+                sortSequentially(start, end, intoScratch);
+                return;
+            }
+            final int mid = (start + end) >>> 1;
+            invokeAll(new SortTask(keys, payload, scratchKeys, scratchPayload, start, mid, !intoScratch),
+                    new SortTask(keys, payload, scratchKeys, scratchPayload, mid, end, !intoScratch));
+            new MergeTask(this, start, mid, mid, end, start).compute();
+        }
+
+        private void sortSequentially(int from, int to, boolean toScratch) {
+            if (to - from <= INSERTION_THRESHOLD) {
+                insertionSort(from, to);
+                if (toScratch) {
+                    System.arraycopy(keys, from, scratchKeys, from, to - from);
+                    System.arraycopy(payload, from, scratchPayload, from, to - from);
+                }
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            sortSequentially(from, mid, !toScratch);
+            sortSequentially(mid, to, !toScratch);
+            merge(toScratch, from, mid, mid, to, from);
+        }
+
+        private void insertionSort(int from, int to) {
+            for (int i = from + 1; i < to; i++) {
+                final long key = keys[i];
+                final int value = payload[i];
+                int j = i;
+                while (j > from && keys[j - 1] > key) {
+                    keys[j] = keys[j - 1];
+                    payload[j] = payload[j - 1];
+                    j--;
+                }
+                keys[j] = key;
+                payload[j] = value;
+            }
+        }
+
+        /**
+         * Merges two sorted runs into the scratch arrays if toScratch is set, or the main ones if not, from the others.
+         * Equal keys from the left run come first.
+         */
+        private void merge(boolean toScratch, int leftStart, int leftEnd, int rightStart, int rightEnd,
+                           int destinationStart) {
+            final long[] sourceKeys = toScratch ? keys : scratchKeys;
+            final int[] sourcePayload = toScratch ? payload : scratchPayload;
+            final long[] destinationKeys = toScratch ? scratchKeys : keys;
+            final int[] destinationPayload = toScratch ? scratchPayload : payload;
+            int i = leftStart;
+            int j = rightStart;
+            int k = destinationStart;
+            while (i < leftEnd && j < rightEnd) {
+                if (sourceKeys[j] < sourceKeys[i]) {
+                    destinationKeys[k] = sourceKeys[j];
+                    destinationPayload[k++] = sourcePayload[j++];
+                } else {
+                    destinationKeys[k] = sourceKeys[i];
+                    destinationPayload[k++] = sourcePayload[i++];
+                }
+            }
+            System.arraycopy(sourceKeys, i, destinationKeys, k, leftEnd - i);
+            System.arraycopy(sourcePayload, i, destinationPayload, k, leftEnd - i);
+            k += leftEnd - i;
+            System.arraycopy(sourceKeys, j, destinationKeys, k, rightEnd - j);
+            System.arraycopy(sourcePayload, j, destinationPayload, k, rightEnd - j);
+        }
+    }
+
+    /**
+     * Merges two sorted runs into the arrays the sort task is writing to, splitting large merges in two the way
+     * {@link ParallelMergeSort} does.
+     */
+    private class MergeTask extends RecursiveAction {
+        private final SortTask sort;
+        private final int leftStart;
+        private final int leftEnd;
+        private final int rightStart;
+        private final int rightEnd;
+        private final int destinationStart;
+
+        private MergeTask(SortTask sort, int leftStart, int leftEnd, int rightStart, int rightEnd,
+                          int destinationStart) {
+            this.sort = sort;
+            this.leftStart = leftStart;
+            this.leftEnd = leftEnd;
+            this.rightStart = rightStart;
+            this.rightEnd = rightEnd;
+            this.destinationStart = destinationStart;
+        }
+
+        @Override
+        protected void compute() {
+            final int leftLength = leftEnd - leftStart;
+            final int rightLength = rightEnd - rightStart;
+            if (leftLength + rightLength < sequentialThreshold || Math.max(leftLength, rightLength) < 2) {
+                sort.merge(sort.intoScratch, leftStart, leftEnd, rightStart, rightEnd, destinationStart);
+                return;
+            }
+            final long[] source = sort.intoScratch ? sort.keys : sort.scratchKeys;
+            final int leftSplit;
+            final int rightSplit;
+            if (leftLength >= rightLength) {
+                leftSplit = (leftStart + leftEnd) >>> 1;
+                rightSplit = lowerBound(source, rightStart, rightEnd, source[leftSplit]);
+            } else {
+                rightSplit = (rightStart + rightEnd) >>> 1;
+                leftSplit = upperBound(source, leftStart, leftEnd, source[rightSplit]);
+            }
+            final int destinationSplit = destinationStart + (leftSplit - leftStart) + (rightSplit - rightStart);
+            invokeAll(new MergeTask(sort, leftStart, leftSplit, rightStart, rightSplit, destinationStart),
+                    new MergeTask(sort, leftSplit, leftEnd, rightSplit, rightEnd, destinationSplit));
+        }
+    }
+
+    private static int lowerBound(long[] array, int start, int end, long key) {
+        while (start < end) {
+            final int mid = (start + end) >>> 1;
+            if (array[mid] < key) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+
+    private static int upperBound(long[] array, int start, int end, long key) {
+        while (start < end) {
+            final int mid = (start + end) >>> 1;
+            if (array[mid] <= key) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+}
@@ -0,0 +1,17 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * Sorts long[]s in ascending order, without boxing them.  See {@link Sorter} for int[]s and {@link DoubleSorter} for
+ * double[]s.
+ */
+public interface LongSorter {
+
+    default void sort(long[] array) {
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts array[from, to), leaving the rest of the array alone.
+     */
+    void sort(long[] array, int from, int to);
+}
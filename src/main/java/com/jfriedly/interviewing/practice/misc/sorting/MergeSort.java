@@ -14,7 +14,13 @@ public class MergeSort implements Sorter {
         mergeSortCountingInversions(array);
     }
 
-    /* pp */ int mergeSortCountingInversions(int[] array) {
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        mergeSortCountingInversions(array, from, to);
+    }
+
+    /* pp */ long mergeSortCountingInversions(int[] array) {
         return mergeSortCountingInversions(array, 0, array.length);
     }
 
@@ -29,9 +35,9 @@ public class MergeSort implements Sorter {
      * @param start inclusive lower index of the subarray
      * @param end   exclusive upper index of the subarrray
      */
-    private int mergeSortCountingInversions(int[] array, int start, int end) {
+    private long mergeSortCountingInversions(int[] array, int start, int end) {
         //logger.debug("Merge sorting {}", Arrays.copyOfRange(array, start, end));
-        int inversions = 0;
+        long inversions = 0;
         if (end - start <= 1) {
             return inversions;
         }
@@ -49,8 +55,8 @@ public class MergeSort implements Sorter {
      * @param mid    the boundary between the left and right subarrays.  Inclusive for the right subarray.
      * @param rend   exclusive upper index of the right subarray
      */
-    private int mergeCountingInversions(int[] array, int lstart, int mid, int rend) {
-        int inversions = 0;
+    private long mergeCountingInversions(int[] array, int lstart, int mid, int rend) {
+        long inversions = 0;
         // Note:  it's not actually necessary to copy the right subarray.
         // The loop below can't overwrite elements in the right subarray until after they've been used:  either the
         // left subarray contains all of the smallest elements, or there's a one-for-one relationship between small
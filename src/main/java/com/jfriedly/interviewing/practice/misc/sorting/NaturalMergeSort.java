@@ -0,0 +1,337 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * Merge sort that takes advantage of order already in the input, in the spirit of TimSort (Peters 2002) and powersort
+ * (Munro and Wild 2018).
+ *
+ * {@link MergeSort} always splits at the midpoint, so it does the same O(n log n) work on sorted input as on random
+ * input.  This instead scans the input for runs that are already sorted and only merges those:
+ *
+ *  1)  Runs:  each run is the longest stretch that's either non-descending or strictly descending from where the
+ *      last one ended.  Descending runs are reversed in place, which is stable because they're strict.  Runs shorter
+ *      than a minimum length (32 to 64, picked so that the number of runs is close to a power of two) are extended
+ *      with binary insertion sort.
+ *  2)  Merge order:  runs are merged as if they were the leaves of a nearly optimal binary tree, using powersort's
+ *      rule.  The boundary between two adjacent runs gets a "power", the depth at which a perfectly balanced tree
+ *      over the whole input would separate their midpoints, and a stack of pending runs is merged down whenever the
+ *      boundary at its top is deeper than the one just found.  That needs O(log n) stack space and costs at most
+ *      O(n H) comparisons, where H is the entropy of the run lengths:  O(n) for a few runs, O(n log n) for many.
+ *  3)  Merging:  elements at the start of the left run that are no larger than the right run's first element are
+ *      already in place, as are elements at the end of the right run that are no smaller than the left run's last,
+ *      so both are skipped.  Whichever run is left over and shorter is copied into the scratch buffer, and merged
+ *      from the front or the back so that the merge never overwrites anything it still needs.  Once one side has won
+ *      {@link #MIN_GALLOP} comparisons in a row, the merge gallops:  an exponential search finds how many more of
+ *      that side's elements go next, and they're copied as a block.
+ *
+ * Input that's sorted except for a few late arrivals becomes a handful of long runs, which takes close to O(n) time.
+ * The sort is stable.  The scratch buffer is allocated once per sort, and only grows when a merge needs more of it,
+ * to at most half the input.
+ */
+public class NaturalMergeSort implements Sorter {
+
+    private static final int MIN_MERGE = 64;
+    private static final int MIN_GALLOP = 7;
+    // Powersort's stack holds one run per power, and powers are at most 32 for int-sized inputs
+    private static final int MAX_STACK = 40;
+
+    @Override
+    public void sort(int[] array) {
+        sort(array, 0, array.length);
+    }
+
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        final int n = to - from;
+        if (n < 2) {
+            return;
+        }
+        if (n < MIN_MERGE) {
+            final int runEnd = findRunAndMakeAscending(array, from, to);
+            binaryInsertionSort(array, from, to, runEnd);
+            return;
+        }
+        new Merger(array, from, n).sort(to);
+    }
+
+    /**
+     * Returns the length the runs are extended to:  n itself if it's short, or else a number between MIN_MERGE / 2
+     * and MIN_MERGE such that n / minRun is a power of two or a little less than one.
+     */
+    private static int minRunLength(int n) {
+        int remainder = 0;
+        while (n >= MIN_MERGE) {
+            remainder |= n & 1;
+            n >>= 1;
+        }
+        return n + remainder;
+    }
+
+    /**
+     * Returns the end of the run that starts at start, reversing it first if it's strictly descending.
+     */
+    private static int findRunAndMakeAscending(int[] array, int start, int end) {
+        int runEnd = start + 1;
+        if (runEnd == end) {
+            return end;
+        }
+        if (array[runEnd++] < array[start]) {
+            while (runEnd < end && array[runEnd] < array[runEnd - 1]) {
+                runEnd++;
+            }
+            for (int i = start, j = runEnd - 1; i < j; i++, j--) {
+                final int temp = array[i];
+                array[i] = array[j];
+                array[j] = temp;
+            }
+        } else {
+            while (runEnd < end && array[runEnd] >= array[runEnd - 1]) {
+                runEnd++;
+            }
+        }
+        return runEnd;
+    }
+
+    /**
+     * Sorts array[start, end), given that [start, sorted) is already sorted, by inserting each later element after
+     * every element no larger than it.
+     */
+    private static void binaryInsertionSort(int[] array, int start, int end, int sorted) {
+        for (int i = sorted; i < end; i++) {
+            final int value = array[i];
+            final int position = gallopForward(array, start, i, value, true);
+            System.arraycopy(array, position, array, position + 1, i - position);
+            array[position] = value;
+        }
+    }
+
+    /**
+     * Returns the first index in the sorted range a[from, to) whose value doesn't belong before key, searching
+     * outwards from from.  If inclusive is set, values equal to key belong before it.
+     */
+    private static int gallopForward(int[] a, int from, int to, int key, boolean inclusive) {
+        int offset = 1;
+        while (offset <= to - from && precedes(a[from + offset - 1], key, inclusive)) {
+            offset <<= 1;
+        }
+        // Everything before lo precedes key, and a[hi] doesn't, or hi is to
+        return binarySearch(a, from + (offset >> 1), Math.min(to, from + offset - 1), key, inclusive);
+    }
+
+    /**
+     * Same as {@link #gallopForward}, but searches inwards from to.
+     */
+    private static int gallopBackward(int[] a, int from, int to, int key, boolean inclusive) {
+        int offset = 1;
+        while (offset <= to - from && !precedes(a[to - offset], key, inclusive)) {
+            offset <<= 1;
+        }
+        // a[hi] doesn't precede key, or hi is to, and everything before lo does
+        return binarySearch(a, Math.max(from, to - offset + 1), to - (offset >> 1), key, inclusive);
+    }
+
+    private static int binarySearch(int[] a, int lo, int hi, int key, boolean inclusive) {
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (precedes(a[mid], key, inclusive)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static boolean precedes(int value, int key, boolean inclusive) {
+        return inclusive ? value <= key : value < key;
+    }
+
+    /**
+     * One sort's pending runs and scratch buffer.
+     */
+    private static class Merger {
+        private final int[] array;
+        private final int from;
+        private final int n;
+        private int[] scratch;
+        // Pending runs, oldest at the bottom, each with the power of the boundary after it
+        private final int[] runStarts = new int[MAX_STACK];
+        private final int[] runPowers = new int[MAX_STACK];
+        private int stackSize;
+
+        private Merger(int[] array, int from, int n) {
+            this.array = array;
+            this.from = from;
+            this.n = n;
+            scratch = new int[Math.min(n >>> 1, 256)];
+        }
+
+        private void sort(int to) {
+            final int minRun = minRunLength(n);
+            int start = from;
+            int end = nextRun(start, to, minRun);
+            while (end < to) {
+                final int nextEnd = nextRun(end, to, minRun);
+                final int power = power(start, end, nextEnd);
+                while (stackSize > 0 && runPowers[stackSize - 1] > power) {
+                    stackSize--;
+                    merge(runStarts[stackSize], start, end);
+                    start = runStarts[stackSize];
+                }
+                runStarts[stackSize] = start;
+                runPowers[stackSize] = power;
+                stackSize++;
+                start = end;
+                end = nextEnd;
+            }
+            while (stackSize > 0) {
+                stackSize--;
+                merge(runStarts[stackSize], start, end);
+                start = runStarts[stackSize];
+            }
+        }
+
+        /**
+         * Finds the run that starts at start, extends it to minRun elements if it's shorter, and returns its end.
+         */
+        private int nextRun(int start, int to, int minRun) {
+            final int runEnd = findRunAndMakeAscending(array, start, to);
+            if (runEnd - start >= minRun) {
+                return runEnd;
+            }
+            final int extendedEnd = Math.min(to, start + minRun);
+            binaryInsertionSort(array, start, extendedEnd, runEnd);
+            return extendedEnd;
+        }
+
+        /**
+         * Returns the power of the boundary between the runs [start1, start2) and [start2, end2):  the first bit at
+         * which their midpoints differ, as fractions of the whole range.
+         */
+        private int power(int start1, int start2, int end2) {
+            // Midpoints relative to the start of the range, doubled so that they're whole numbers, so that each one
+            // over 2n is a fraction in [0, 1)
+            long a = (long) (start1 - from) + (start2 - from);
+            long b = (long) (start2 - from) + (end2 - from);
+            int power = 0;
+            while (true) {
+                power++;
+                if (a >= n) {
+                    a -= n;
+                    b -= n;
+                } else if (b >= n) {
+                    return power;
+                }
+                a <<= 1;
+                b <<= 1;
+            }
+        }
+
+        /**
+         * Merges the adjacent sorted runs array[lo, mid) and array[mid, hi).
+         */
+        private void merge(int lo, int mid, int hi) {
+            // The start of the left run that's no larger than the right run's first element is already in place
+            lo = gallopForward(array, lo, mid, array[mid], true);
+            if (lo == mid) {
+                return;
+            }
+            // And so is the end of the right run that's no smaller than the left run's last element
+            hi = gallopBackward(array, mid, hi, array[mid - 1], false);
+            if (mid - lo <= hi - mid) {
+                mergeLow(lo, mid, hi);
+            } else {
+                mergeHigh(lo, mid, hi);
+            }
+        }
+
+        /**
+         * Merges from the front, with the left run copied out into the scratch buffer.
+         */
+        private void mergeLow(int lo, int mid, int hi) {
+            final int leftLength = mid - lo;
+            final int[] left = scratch(leftLength);
+            System.arraycopy(array, lo, left, 0, leftLength);
+            int i = 0;
+            int j = mid;
+            int k = lo;
+            int leftWins = 0;
+            int rightWins = 0;
+            while (i < leftLength && j < hi) {
+                if (array[j] < left[i]) {
+                    array[k++] = array[j++];
+                    rightWins++;
+                    leftWins = 0;
+                } else {
+                    // Ties go to the left run, which is what keeps the merge stable
+                    array[k++] = left[i++];
+                    leftWins++;
+                    rightWins = 0;
+                }
+                if (leftWins >= MIN_GALLOP && j < hi) {
+                    final int count = gallopForward(left, i, leftLength, array[j], true) - i;
+                    System.arraycopy(left, i, array, k, count);
+                    i += count;
+                    k += count;
+                    leftWins = 0;
+                } else if (rightWins >= MIN_GALLOP && i < leftLength) {
+                    final int count = gallopForward(array, j, hi, left[i], false) - j;
+                    System.arraycopy(array, j, array, k, count);
+                    j += count;
+                    k += count;
+                    rightWins = 0;
+                }
+            }
+            // Whatever's left of the right run is already in place
+            System.arraycopy(left, i, array, k, leftLength - i);
+        }
+
+        /**
+         * Merges from the back, with the right run copied out into the scratch buffer.
+         */
+        private void mergeHigh(int lo, int mid, int hi) {
+            final int rightLength = hi - mid;
+            final int[] right = scratch(rightLength);
+            System.arraycopy(array, mid, right, 0, rightLength);
+            int i = mid - 1;
+            int j = rightLength - 1;
+            int k = hi - 1;
+            int leftWins = 0;
+            int rightWins = 0;
+            while (i >= lo && j >= 0) {
+                if (right[j] < array[i]) {
+                    array[k--] = array[i--];
+                    leftWins++;
+                    rightWins = 0;
+                } else {
+                    // Ties go to the right run, since this fills in from the back
+                    array[k--] = right[j--];
+                    rightWins++;
+                    leftWins = 0;
+                }
+                if (leftWins >= MIN_GALLOP && i >= lo) {
+                    final int count = i + 1 - gallopBackward(array, lo, i + 1, right[j], true);
+                    System.arraycopy(array, i + 1 - count, array, k + 1 - count, count);
+                    i -= count;
+                    k -= count;
+                    leftWins = 0;
+                } else if (rightWins >= MIN_GALLOP && j >= 0) {
+                    final int count = j + 1 - gallopBackward(right, 0, j + 1, array[i], false);
+                    System.arraycopy(right, j + 1 - count, array, k + 1 - count, count);
+                    j -= count;
+                    k -= count;
+                    rightWins = 0;
+                }
+            }
+            // Whatever's left of the left run is already in place
+            System.arraycopy(right, 0, array, lo, j + 1);
+        }
+
+        private int[] scratch(int length) {
+            if (scratch.length < length) {
+                scratch = new int[Math.max(length, Math.min(n >>> 1, scratch.length * 2))];
+            }
+            return scratch;
+        }
+    }
+}
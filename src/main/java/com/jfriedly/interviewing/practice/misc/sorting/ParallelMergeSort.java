@@ -0,0 +1,276 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merge sort that splits the work across a {@link ForkJoinPool}, including the merges themselves.
+ *
+ * Unlike {@link MergeSort}, which copies the left subarray on every merge, this allocates a single scratch array the
+ * size of the input and merges back and forth between it and the input:  each level of the recursion sorts its halves
+ * into the other array, then merges them into the one its caller expects.  Short ranges are insertion sorted, which
+ * beats merging them.
+ *
+ * Sorting the two halves in parallel only gets you so far, because the final merge of n elements would still run on
+ * one thread.  So large merges are split too:  take the middle element of the longer run, binary search for where it
+ * belongs in the shorter one, and the two pieces on either side of that split can be merged independently.
+ *
+ * Like {@link MergeSort}, this counts inversions along the way (CLRS Problem 2-4), which is how {@link Inversions}
+ * counts them in parallel.  Each task keeps its count in a primitive field that its parent reads after joining it, so
+ * counting doesn't box anything.
+ */
+public class ParallelMergeSort implements Sorter {
+
+    private static final int DEFAULT_INSERTION_THRESHOLD = 32;
+    // Ranges smaller than this are sorted, or merged, on the current thread
+    private static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 13;
+
+    private final ForkJoinPool pool;
+    private final int insertionThreshold;
+    private final int sequentialThreshold;
+
+    public ParallelMergeSort() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelMergeSort(ForkJoinPool pool) {
+        this(pool, DEFAULT_INSERTION_THRESHOLD, DEFAULT_SEQUENTIAL_THRESHOLD);
+    }
+
+    /* pp */ ParallelMergeSort(ForkJoinPool pool, int insertionThreshold, int sequentialThreshold) {
+        this.pool = pool;
+        this.insertionThreshold = insertionThreshold;
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    @Override
+    public void sort(int[] array) {
+        sortCountingInversions(array);
+    }
+
+    /**
+     * Sorts array[from, to) with a scratch array the size of the range.
+     */
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        sortCountingInversions(array, from, to);
+    }
+
+    /**
+     * Sorts the array and returns how many pairs of its elements were out of order.  That's at most n (n - 1) / 2,
+     * which only fits in an int for arrays of up to about 65,000 elements.
+     */
+    /* pp */ long sortCountingInversions(int[] array) {
+        return sortCountingInversions(array, 0, array.length);
+    }
+
+    private long sortCountingInversions(int[] array, int from, int to) {
+        if (to - from <= insertionThreshold) {
+            return insertionSort(array, from, to);
+        }
+        final SortTask task = new SortTask(array, new int[to - from], from, from, to, false);
+        pool.invoke(task);
+        return task.inversions;
+    }
+
+    /**
+     * Every time insertion sort shifts an element, that's one inversion.
+     */
+    private static long insertionSort(int[] array, int start, int end) {
+        long inversions = 0;
+        for (int i = start + 1; i < end; i++) {
+            final int key = array[i];
+            int j = i;
+            while (j > start && array[j - 1] > key) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = key;
+            inversions += i - j;
+        }
+        return inversions;
+    }
+
+    /**
+     * Sorts array[start, end) and leaves the result in the same positions of either array or scratch, depending on
+     * intoScratch.  Scratch only covers the range being sorted, so scratch[0] mirrors array[scratchStart].  Both
+     * arrays' contents in that range may be overwritten.  Once it's done, inversions holds the number of inversions in
+     * the range.
+     */
+    private class SortTask extends RecursiveAction {
+        private final int[] array;
+        private final int[] scratch;
+        private final int scratchStart;
+        private final int start;
+        private final int end;
+        private final boolean intoScratch;
+        private long inversions;
+
+        private SortTask(int[] array, int[] scratch, int scratchStart, int start, int end, boolean intoScratch) {
+            this.array = array;
+            this.scratch = scratch;
+            this.scratchStart = scratchStart;
+            this.start = start;
+            this.end = end;
+            this.intoScratch = intoScratch;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start < sequentialThreshold) {
+                inversions = sortSequentially(start, end, intoScratch);
+                return;
+            }
+            final int mid = (start + end) >>> 1;
+            // Sort each half into whichever array this level isn't writing to, then merge them across
+            final SortTask left = new SortTask(array, scratch, scratchStart, start, mid, !intoScratch);
+            final SortTask right = new SortTask(array, scratch, scratchStart, mid, end, !intoScratch);
+            left.fork();
+            right.compute();
+            left.join();
+            final int[] source = intoScratch ? array : scratch;
+            final int[] destination = intoScratch ? scratch : array;
+            final MergeTask merge = new MergeTask(source, index(source, start), index(source, mid),
+                    index(source, mid), index(source, end), destination, index(destination, start));
+            merge.compute();
+            inversions = left.inversions + right.inversions + merge.inversions;
+        }
+
+        private long sortSequentially(int from, int to, boolean toScratch) {
+            if (to - from <= insertionThreshold) {
+                final long inversions = insertionSort(array, from, to);
+                if (toScratch) {
+                    System.arraycopy(array, from, scratch, from - scratchStart, to - from);
+                }
+                return inversions;
+            }
+            final int mid = (from + to) >>> 1;
+            long inversions = sortSequentially(from, mid, !toScratch);
+            inversions += sortSequentially(mid, to, !toScratch);
+            final int[] source = toScratch ? array : scratch;
+            final int[] destination = toScratch ? scratch : array;
+            inversions += merge(source, index(source, from), index(source, mid), index(source, mid),
+                    index(source, to), destination, index(destination, from));
+            return inversions;
+        }
+
+        /**
+         * Returns where the element at the given position of the array lives in buffer, which is either the array
+         * itself or scratch.
+         */
+        private int index(int[] buffer, int position) {
+            return buffer == scratch ? position - scratchStart : position;
+        }
+    }
+
+    /**
+     * Merges the sorted runs source[leftStart, leftEnd) and source[rightStart, rightEnd) into destination, starting at
+     * destinationStart.  Equal elements from the left run come first, so the merge is stable.  Once it's done,
+     * inversions holds the number of pairs of a left element and a right element that were out of order.
+     */
+    private class MergeTask extends RecursiveAction {
+        private final int[] source;
+        private final int leftStart;
+        private final int leftEnd;
+        private final int rightStart;
+        private final int rightEnd;
+        private final int[] destination;
+        private final int destinationStart;
+        private long inversions;
+
+        private MergeTask(int[] source, int leftStart, int leftEnd, int rightStart, int rightEnd, int[] destination,
+                          int destinationStart) {
+            this.source = source;
+            this.leftStart = leftStart;
+            this.leftEnd = leftEnd;
+            this.rightStart = rightStart;
+            this.rightEnd = rightEnd;
+            this.destination = destination;
+            this.destinationStart = destinationStart;
+        }
+
+        @Override
+        protected void compute() {
+            final int leftLength = leftEnd - leftStart;
+            final int rightLength = rightEnd - rightStart;
+            // A run of one can't be split any further
+            if (leftLength + rightLength < sequentialThreshold || Math.max(leftLength, rightLength) < 2) {
+                inversions = merge(source, leftStart, leftEnd, rightStart, rightEnd, destination, destinationStart);
+                return;
+            }
+            // Everything before the split in either run belongs before everything after it in the output.  So every
+            // left element after the split is larger than every right element before it, and no left element before
+            // the split is larger than any right element after it.
+            final int leftSplit;
+            final int rightSplit;
+            if (leftLength >= rightLength) {
+                leftSplit = (leftStart + leftEnd) >>> 1;
+                rightSplit = lowerBound(source, rightStart, rightEnd, source[leftSplit]);
+            } else {
+                rightSplit = (rightStart + rightEnd) >>> 1;
+                leftSplit = upperBound(source, leftStart, leftEnd, source[rightSplit]);
+            }
+            final int destinationSplit = destinationStart + (leftSplit - leftStart) + (rightSplit - rightStart);
+            final MergeTask first = new MergeTask(source, leftStart, leftSplit, rightStart, rightSplit, destination,
+                    destinationStart);
+            final MergeTask second = new MergeTask(source, leftSplit, leftEnd, rightSplit, rightEnd, destination,
+                    destinationSplit);
+            first.fork();
+            second.compute();
+            first.join();
+            inversions = first.inversions + second.inversions
+                    + (long) (leftEnd - leftSplit) * (rightSplit - rightStart);
+        }
+    }
+
+    private static long merge(int[] source, int leftStart, int leftEnd, int rightStart, int rightEnd,
+                              int[] destination, int destinationStart) {
+        long inversions = 0;
+        int i = leftStart;
+        int j = rightStart;
+        int k = destinationStart;
+        while (i < leftEnd && j < rightEnd) {
+            if (source[j] < source[i]) {
+                // Every element still left in the left run is larger than this one
+                inversions += leftEnd - i;
+                destination[k++] = source[j++];
+            } else {
+                destination[k++] = source[i++];
+            }
+        }
+        System.arraycopy(source, i, destination, k, leftEnd - i);
+        System.arraycopy(source, j, destination, k + leftEnd - i, rightEnd - j);
+        return inversions;
+    }
+
+    /**
+     * Returns the first index in array[start, end) whose value is at least key, or end if there isn't one.
+     */
+    private static int lowerBound(int[] array, int start, int end, int key) {
+        while (start < end) {
+            final int mid = (start + end) >>> 1;
+            if (array[mid] < key) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Returns the first index in array[start, end) whose value is greater than key, or end if there isn't one.
+     */
+    private static int upperBound(int[] array, int start, int end, int key) {
+        while (start < end) {
+            final int mid = (start + end) >>> 1;
+            if (array[mid] <= key) {
+                start = mid + 1;
+            } else {
+                end = mid;
+            }
+        }
+        return start;
+    }
+}
@@ -14,6 +14,12 @@ public class QuickSort implements Sorter {
         quicksort(arr, -1, 0, arr.length - 1);
     }
 
+    @Override
+    public void sort(int[] arr, int from, int to) {
+        Ranges.check(arr.length, from, to);
+        quicksort(arr, -1, from, to - 1);
+    }
+
     @Override
     public int[] smallestK(int[] arr, int k) {
         if (k == 0) {
@@ -0,0 +1,204 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Least significant digit radix sort, which sorts ints without ever comparing two of them.
+ *
+ * Each pass is a stable counting sort on one 11-bit digit of the keys, from the lowest digit to the highest, so three
+ * passes sort any int[] in O(n) time with one scratch array.  Flipping the sign bit of each key makes negative values
+ * sort before positive ones, as if the keys were unsigned.
+ *
+ *  -   The histograms for all three passes are built in one read through the input.  A pass where every key has the
+ *      same digit wouldn't move anything, so it's skipped; that's common when the values fit in a small range.
+ *  -   Large arrays are cut into chunks, one or more per thread in the pool.  Each chunk counts its own digits, then
+ *      scatters its own keys into the slots the counts reserve for it, so threads never write to the same slot and
+ *      the scatter stays stable.
+ *
+ * Short arrays are insertion sorted instead, since clearing the histograms would take longer than sorting them.
+ */
+public class RadixSort implements Sorter {
+
+    private static final int DIGIT_BITS = 11;
+    private static final int RADIX = 1 << DIGIT_BITS;
+    private static final int DIGIT_MASK = RADIX - 1;
+    private static final int PASSES = (Integer.SIZE + DIGIT_BITS - 1) / DIGIT_BITS;
+    private static final int INSERTION_THRESHOLD = 64;
+    // Chunks smaller than this aren't worth the extra histograms
+    private static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+    private final int minChunkSize;
+
+    public RadixSort() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RadixSort(ForkJoinPool pool) {
+        this(pool, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    /* pp */ RadixSort(ForkJoinPool pool, int minChunkSize) {
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    @Override
+    public void sort(int[] array) {
+        sort(array, 0, array.length);
+    }
+
+    /**
+     * Sorts array[from, to) with a scratch array the size of the range.
+     */
+    @Override
+    public void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        final int n = to - from;
+        if (n <= INSERTION_THRESHOLD) {
+            insertionSort(array, from, to);
+            return;
+        }
+        final int chunks = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD, n / minChunkSize));
+        // counts[chunk][pass * RADIX + digit]
+        final int[][] counts = new int[chunks][PASSES * RADIX];
+        forEachChunk(chunks, chunk -> {
+            final int[] chunkCounts = counts[chunk];
+            for (int i = chunkStart(chunk, chunks, n); i < chunkStart(chunk + 1, chunks, n); i++) {
+                final int key = array[from + i] ^ Integer.MIN_VALUE;
+                for (int pass = 0; pass < PASSES; pass++) {
+                    chunkCounts[pass * RADIX + digit(key, pass)]++;
+                }
+            }
+        });
+
+        // Positions below are relative to the range, which starts at from in the array and at 0 in the scratch array
+        int[] source = array;
+        int sourceStart = from;
+        int[] destination = new int[n];
+        int destinationStart = 0;
+        boolean moved = false;
+        final int[][] offsets = new int[chunks][RADIX];
+        for (int pass = 0; pass < PASSES; pass++) {
+            if (isConstant(counts, pass, n)) {
+                continue;
+            }
+            final int currentPass = pass;
+            final int[] currentSource = source;
+            final int currentSourceStart = sourceStart;
+            final int[] currentDestination = destination;
+            final int currentDestinationStart = destinationStart;
+            if (moved && chunks > 1) {
+                // The keys have moved between chunks since they were counted
+                forEachChunk(chunks, chunk -> {
+                    final int[] chunkCounts = counts[chunk];
+                    final int base = currentPass * RADIX;
+                    for (int digit = 0; digit < RADIX; digit++) {
+                        chunkCounts[base + digit] = 0;
+                    }
+                    for (int i = chunkStart(chunk, chunks, n); i < chunkStart(chunk + 1, chunks, n); i++) {
+                        chunkCounts[base + digit(currentSource[currentSourceStart + i] ^ Integer.MIN_VALUE,
+                                currentPass)]++;
+                    }
+                });
+            }
+
+            // Keys with smaller digits go first, and within a digit, keys from earlier chunks go first
+            int next = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    offsets[chunk][digit] = next;
+                    next += counts[chunk][pass * RADIX + digit];
+                }
+            }
+            forEachChunk(chunks, chunk -> {
+                final int[] chunkOffsets = offsets[chunk];
+                for (int i = chunkStart(chunk, chunks, n); i < chunkStart(chunk + 1, chunks, n); i++) {
+                    final int value = currentSource[currentSourceStart + i];
+                    final int position = chunkOffsets[digit(value ^ Integer.MIN_VALUE, currentPass)]++;
+                    currentDestination[currentDestinationStart + position] = value;
+                }
+            });
+            source = currentDestination;
+            sourceStart = currentDestinationStart;
+            destination = currentSource;
+            destinationStart = currentSourceStart;
+            moved = true;
+        }
+        if (source != array) {
+            System.arraycopy(source, 0, array, from, n);
+        }
+    }
+
+    private static int digit(int key, int pass) {
+        return key >>> (pass * DIGIT_BITS) & DIGIT_MASK;
+    }
+
+    private static int chunkStart(int chunk, int chunks, int n) {
+        return (int) ((long) n * chunk / chunks);
+    }
+
+    /**
+     * Returns true if every key has the same digit in this pass.
+     */
+    private static boolean isConstant(int[][] counts, int pass, int n) {
+        for (int digit = 0; digit < RADIX; digit++) {
+            int total = 0;
+            for (int[] chunkCounts : counts) {
+                total += chunkCounts[pass * RADIX + digit];
+            }
+            if (total != 0) {
+                return total == n;
+            }
+        }
+        return true;
+    }
+
+    private static void insertionSort(int[] array, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            final int key = array[i];
+            int j = i;
+            while (j > from && array[j - 1] > key) {
+                array[j] = array[j - 1];
+                j--;
+            }
+            array[j] = key;
+        }
+    }
+
+    /**
+     * Runs the action on every chunk, in parallel if there's more than one.
+     */
+    private void forEachChunk(int chunks, IntConsumer action) {
+        if (chunks == 1) {
+            action.accept(0);
+        } else {
+            pool.invoke(new ChunkTask(0, chunks, action));
+        }
+    }
+
+    private static class ChunkTask extends RecursiveAction {
+        private final int lo;
+        private final int hi;
+        private final IntConsumer action;
+
+        private ChunkTask(int lo, int hi, IntConsumer action) {
+            this.lo = lo;
+            this.hi = hi;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                action.accept(lo);
+                return;
+            }
+            final int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkTask(lo, mid, action), new ChunkTask(mid, hi, action));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+/**
+ * Helpers for the sorters' from / to range overloads.
+ */
+final class Ranges {
+
+    private Ranges() {
+    }
+
+    /**
+     * Throws {@link IllegalArgumentException} unless [from, to) is a valid range of an array of the given length.
+     */
+    static void check(int length, int from, int to) {
+        if (from < 0 || from > to || to > length) {
+            throw new IllegalArgumentException("Can't sort [" + from + ", " + to + ") of an array of length "
+                    + length);
+        }
+    }
+
+    /**
+     * Returns floor(log2(n)), or 0 if n is 0.
+     */
+    static int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+    }
+}
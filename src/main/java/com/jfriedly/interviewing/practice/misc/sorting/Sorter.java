@@ -6,11 +6,40 @@ public interface Sorter {
 
     void sort(int[] array);
 
+    /**
+     * Sorts array[from, to), leaving the rest of the array alone.  By default, this sorts a copy of the range and
+     * copies it back, which every sorter in this package overrides to work on the range where it is.
+     */
+    default void sort(int[] array, int from, int to) {
+        Ranges.check(array.length, from, to);
+        final int[] range = Arrays.copyOfRange(array, from, to);
+        sort(range);
+        System.arraycopy(range, 0, array, from, range.length);
+    }
+
+    /**
+     * Returns the k smallest elements of the array, in no particular order, and may rearrange the array to find them.
+     * By default, this moves them to the front with {@link #select(int[], int)}.
+     */
     default int[] smallestK(int[] array, int k) {
-        sort(array);
+        if (k > 0 && k < array.length) {
+            select(array, k - 1);
+        }
         return Arrays.copyOf(array, k);
     }
 
+    /**
+     * Rearranges the array so that array[k] holds the element that would be there if it were sorted, with nothing
+     * larger before it and nothing smaller after it, and returns that element.  By default, this sorts the whole array.
+     */
+    default int select(int[] array, int k) {
+        if (k < 0 || k >= array.length) {
+            throw new IllegalArgumentException("Can't select element " + k + " of " + array.length);
+        }
+        sort(array);
+        return array[k];
+    }
+
     default void swap(int[] array, int first, int second) {
         final int temp = array[first];
         array[first] = array[second];
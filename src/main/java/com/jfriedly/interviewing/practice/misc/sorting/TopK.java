@@ -0,0 +1,127 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps the k smallest values seen so far out of a stream of ints that may be far too large to hold in memory.
+ *
+ * The values are kept in a max-heap of at most k ints, so the largest of them is always at the root.  Each new value
+ * is either dropped right away, because it's no smaller than the root, or replaces the root and sifts down.  That's
+ * O(n log k) time and O(k) memory for n values, and no boxing.
+ *
+ * Two of these can be merged, which makes a parallel reduction easy:  each thread collects its own part of the
+ * input, then the results are merged pairwise.  {@link #smallestK(IntStream, int)} does exactly that through
+ * {@link IntStream#collect}, so it works on parallel streams as is.  Instances aren't thread safe on their own.
+ */
+public class TopK {
+
+    private final int k;
+    private final int[] heap;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Can't keep " + k + " values");
+        }
+        this.k = k;
+        heap = new int[k];
+    }
+
+    /**
+     * Returns the k smallest values in the stream, sorted.  The stream may be parallel.
+     */
+    public static int[] smallestK(IntStream values, int k) {
+        return values.collect(() -> new TopK(k), TopK::add, TopK::addAll)
+                .toSortedArray();
+    }
+
+    /**
+     * Returns the k smallest values left in the iterator, sorted.
+     */
+    public static int[] smallestK(PrimitiveIterator.OfInt values, int k) {
+        final TopK topK = new TopK(k);
+        while (values.hasNext()) {
+            topK.add(values.nextInt());
+        }
+        return topK.toSortedArray();
+    }
+
+    /**
+     * Returns the k smallest values between the buffer's position and its limit, sorted.  Reads them with absolute
+     * gets, so the buffer's position doesn't change.
+     */
+    public static int[] smallestK(IntBuffer values, int k) {
+        final TopK topK = new TopK(k);
+        for (int i = values.position(); i < values.limit(); i++) {
+            topK.add(values.get(i));
+        }
+        return topK.toSortedArray();
+    }
+
+    public void add(int value) {
+        if (size < k) {
+            siftUp(size++, value);
+        } else if (k > 0 && value < heap[0]) {
+            siftDown(value);
+        }
+    }
+
+    /**
+     * Adds every value kept by the other one, which isn't modified.
+     */
+    public void addAll(TopK other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.heap[i]);
+        }
+    }
+
+    /**
+     * Returns how many values are kept, which is k once at least k values have been added.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the values kept so far, smallest first.
+     */
+    public int[] toSortedArray() {
+        final int[] values = Arrays.copyOf(heap, size);
+        Arrays.sort(values);
+        return values;
+    }
+
+    private void siftUp(int i, int value) {
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (heap[parent] >= value) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * Replaces the root with value and moves it down until neither child is larger.
+     */
+    private void siftDown(int value) {
+        int i = 0;
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+}
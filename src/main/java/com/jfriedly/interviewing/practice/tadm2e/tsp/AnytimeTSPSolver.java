@@ -0,0 +1,43 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import com.esri.core.geometry.MultiPoint;
+import com.esri.core.geometry.Polyline;
+
+/**
+ * A {@link TSPSolver} that can be stopped early:  once its {@link Deadline} passes or is cancelled, it returns the best
+ * tour it has found so far instead of finishing, and it can report each improved tour as it finds it.
+ *
+ * For a request with a 200 ms budget, for instance, solve with {@code Deadline.after(200, TimeUnit.MILLISECONDS)}.
+ * Solvers only check the deadline every so often, so they can overrun it slightly, by well under a millisecond for
+ * the search itself.  Any work a solver does before it starts searching, like building its initial tour or its
+ * candidate neighbor lists, can't be interrupted.
+ */
+public interface AnytimeTSPSolver extends TSPSolver {
+
+    /**
+     * Finds a tour through the points (x[i], y[i]), stopping early once the deadline passes.
+     *
+     * @param listener Receives improved tours as they're found.  See {@link TourListener}.
+     * @return The best tour found before the deadline.  It's always a valid tour, however early the deadline is.
+     */
+    int[] findTour(double[] x, double[] y, Deadline deadline, TourListener listener);
+
+    default int[] findTour(double[] x, double[] y, Deadline deadline) {
+        return findTour(x, y, deadline, TourListener.NONE);
+    }
+
+    /**
+     * Searches with no time limit.
+     */
+    @Override
+    default int[] findTour(double[] x, double[] y) {
+        return findTour(x, y, Deadline.none());
+    }
+
+    default Polyline findTour(MultiPoint input, Deadline deadline, TourListener listener) {
+        final double[] x = new double[input.getPointCount()];
+        final double[] y = new double[input.getPointCount()];
+        Tours.queryCoordinates(input, x, y);
+        return Tours.toPolyline(x, y, findTour(x, y, deadline, listener));
+    }
+}
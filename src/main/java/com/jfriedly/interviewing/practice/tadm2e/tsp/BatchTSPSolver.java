@@ -0,0 +1,169 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import com.esri.core.geometry.MultiPoint;
+import com.esri.core.geometry.Polyline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves many independent instances at once with one {@link TSPSolver}, spread across a {@link ForkJoinPool}.
+ *
+ * Solving thousands of small instances one at a time in a loop leaves every core but one idle, and a task per
+ * instance costs about as much to schedule as a ten point instance costs to solve.  Instead, the batch is split in
+ * half recursively until each task holds a few instances, so idle threads steal large ranges of work from busy ones
+ * and the pool's parallelism bounds how many instances are in flight.
+ *
+ * Each worker thread also keeps scratch coordinate arrays for small instances, one pair per instance size, so
+ * converting a {@link MultiPoint} doesn't allocate anything but the solver's own structures and the result.
+ *
+ * The solver is called from several threads at once, so it must not keep any state between calls.  If it throws
+ * for any instance, the exception is rethrown from the batch.
+ */
+public class BatchTSPSolver {
+
+    // Instances at or below this size are read into reusable per-thread arrays
+    public static final int MAX_SCRATCH_POINTS = 64;
+    // Instances per task; below this, splitting costs more than it balances
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    private final TSPSolver solver;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    public BatchTSPSolver(TSPSolver solver) {
+        this(solver, ForkJoinPool.commonPool());
+    }
+
+    public BatchTSPSolver(TSPSolver solver, ForkJoinPool pool) {
+        this.solver = solver;
+        this.pool = pool;
+    }
+
+    /**
+     * Finds a tour through each input, blocking until every one is done.  The tours come back in the same order as
+     * the inputs.
+     */
+    public List<Polyline> findTours(List<MultiPoint> inputs) {
+        final Polyline[] tours = new Polyline[inputs.size()];
+        pool.invoke(new BatchTask(0, inputs.size(), i -> tours[i] = findTour(inputs.get(i))));
+        return Arrays.asList(tours);
+    }
+
+    /**
+     * Finds a tour through the points (x[k][i], y[k][i]) of each instance k, blocking until every one is done.
+     *
+     * @return The tour for each instance, in the same order as the inputs.
+     */
+    public int[][] findTours(double[][] x, double[][] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Got x coordinates for " + x.length + " instances but y coordinates for "
+                    + y.length);
+        }
+        final int[][] tours = new int[x.length][];
+        pool.invoke(new BatchTask(0, x.length, k -> tours[k] = solver.findTour(x[k], y[k])));
+        return tours;
+    }
+
+    /**
+     * Starts finding a tour through each input and returns right away.  Each future completes as soon as its own
+     * tour is done, or completes exceptionally if the solver throws.
+     */
+    public List<CompletableFuture<Polyline>> submit(List<MultiPoint> inputs) {
+        final List<CompletableFuture<Polyline>> futures = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        pool.execute(new BatchTask(0, inputs.size(), i -> {
+            try {
+                futures.get(i).complete(findTour(inputs.get(i)));
+            } catch (RuntimeException | Error e) {
+                futures.get(i).completeExceptionally(e);
+            }
+        }));
+        return futures;
+    }
+
+    private Polyline findTour(MultiPoint input) {
+        final int n = input.getPointCount();
+        final Scratch buffers = scratch.get();
+        // A solver that forks onto the same pool can steal another instance onto this thread while it waits, and
+        // that instance has to leave this one's arrays alone
+        if (n > MAX_SCRATCH_POINTS || buffers.inUse) {
+            final double[] x = new double[n];
+            final double[] y = new double[n];
+            Tours.queryCoordinates(input, x, y);
+            return Tours.toPolyline(x, y, solver.findTour(x, y));
+        }
+        buffers.inUse = true;
+        try {
+            final double[] x = buffers.x(n);
+            final double[] y = buffers.y(n);
+            Tours.queryCoordinates(input, x, y);
+            // The polyline copies the coordinates, so the arrays are free again once this returns
+            return Tours.toPolyline(x, y, solver.findTour(x, y));
+        } finally {
+            buffers.inUse = false;
+        }
+    }
+
+    /**
+     * Coordinate arrays of every size up to {@link #MAX_SCRATCH_POINTS}, allocated the first time a thread needs them.
+     * Solvers expect arrays exactly as long as the instance, so one large buffer can't be shared between sizes.
+     */
+    private static class Scratch {
+        private final double[][] xs = new double[MAX_SCRATCH_POINTS + 1][];
+        private final double[][] ys = new double[MAX_SCRATCH_POINTS + 1][];
+        private boolean inUse;
+
+        private double[] x(int n) {
+            if (xs[n] == null) {
+                xs[n] = new double[n];
+            }
+            return xs[n];
+        }
+
+        private double[] y(int n) {
+            if (ys[n] == null) {
+                ys[n] = new double[n];
+            }
+            return ys[n];
+        }
+    }
+
+    /**
+     * Solves instances [lo, hi) of a batch, splitting the range in half until it's small enough to run directly.
+     */
+    private static class BatchTask extends RecursiveAction {
+        private final int lo;
+        private final int hi;
+        private final Instance instance;
+
+        private BatchTask(int lo, int hi, Instance instance) {
+            this.lo = lo;
+            this.hi = hi;
+            this.instance = instance;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= SEQUENTIAL_THRESHOLD) {
+                for (int i = lo; i < hi; i++) {
+                    instance.solve(i);
+                }
+                return;
+            }
+            final int mid = (lo + hi) >>> 1;
+            invokeAll(new BatchTask(lo, mid, instance), new BatchTask(mid, hi, instance));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Instance {
+        void solve(int index);
+    }
+}
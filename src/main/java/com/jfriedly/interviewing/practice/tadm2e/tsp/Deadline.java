@@ -0,0 +1,66 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When an {@link AnytimeTSPSolver} has to stop searching:  at a fixed point in time, as soon as someone calls
+ * {@link #cancel()}, or both, whichever comes first.  A deadline can be shared between solvers, and cancelled from any
+ * thread.
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+    private volatile boolean cancelled;
+
+    private Deadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * Returns a deadline the given amount of time from now.
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("Duration must not be negative: " + duration);
+        }
+        return new Deadline(System.nanoTime() + unit.toNanos(duration), true);
+    }
+
+    /**
+     * Returns a deadline that never passes unless it's cancelled.
+     */
+    public static Deadline none() {
+        return new Deadline(0, false);
+    }
+
+    /**
+     * Makes every solver using this deadline stop as soon as it next checks it, and return the best tour it has.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isExpired() {
+        return cancelled || (bounded && System.nanoTime() - deadlineNanos >= 0);
+    }
+
+    /**
+     * Returns how many nanoseconds are left, 0 if the deadline has passed or been cancelled, or
+     * {@link Long#MAX_VALUE} if it has no time limit.
+     */
+    public long remainingNanos() {
+        if (cancelled) {
+            return 0;
+        }
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+}
@@ -0,0 +1,35 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Distances between the points of a TSP instance, indexed 0 through size() - 1.
+ *
+ * Solvers that never look at coordinates, only distances (see {@link DistanceTSPSolver}), can take one of these
+ * instead of the points themselves.  That way a set of distances can be computed once and shared by every solve over
+ * the same points:
+ *
+ *  -   {@link EuclideanDistances} computes each distance from the coordinates whenever it's asked for.  It takes no
+ *      memory, and a square root is cheap enough that it's usually the fastest option for a single solve.
+ *  -   {@link TriangularDistanceMatrix} precomputes every distance into a {@code float[]} on the heap.
+ *  -   {@link MappedDistanceMatrix} keeps the same matrix in a memory-mapped file, so that it can be larger than the
+ *      heap and shared between processes.
+ *
+ * Distances must be symmetric and satisfy the triangle inequality, like Euclidean distances do.  Implementations must
+ * be safe to read from several threads at once.
+ */
+public interface DistanceProvider {
+
+    int size();
+
+    double distance(int i, int j);
+
+    /**
+     * Returns the total length of the tour, including the edge from the last point back to the first.
+     */
+    default double length(int[] tour) {
+        double length = 0;
+        for (int i = 0; i < tour.length; i++) {
+            length += distance(tour[i], tour[i + 1 == tour.length ? 0 : i + 1]);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,20 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * A {@link TSPSolver} that only ever needs the distances between points, never their coordinates, so it can solve
+ * from a precomputed {@link DistanceProvider} that's shared by many solves over the same points.
+ */
+public interface DistanceTSPSolver extends TSPSolver {
+
+    /**
+     * Finds a tour through the points whose distances are given.
+     *
+     * @return The order in which to visit the points:  a permutation of the indexes 0 through size() - 1.
+     */
+    int[] findTour(DistanceProvider distances);
+
+    @Override
+    default int[] findTour(double[] x, double[] y) {
+        return findTour(new EuclideanDistances(x, y));
+    }
+}
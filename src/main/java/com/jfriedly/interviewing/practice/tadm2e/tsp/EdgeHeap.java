@@ -0,0 +1,104 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Binary min-heap of the candidate edges between points and their nearest neighbors, ordered by length and then by
+ * endpoint indexes, so that ties are broken in the same order {@link ClosestPairTSPSolver} scans pairs in.
+ */
+class EdgeHeap {
+
+    private final int[] first;
+    private final int[] second;
+    private final double[] length;
+    private final int[] heap;
+    private int size;
+
+    /**
+     * Collects the edge from each point to each of its k candidate neighbors (as built by
+     * {@link KdTree#neighborLists}) once, as (smaller index, larger index).
+     */
+    EdgeHeap(double[] x, double[] y, int[] neighborLists, int k) {
+        final int n = x.length;
+        first = new int[n * k];
+        second = new int[n * k];
+        length = new double[n * k];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < k; j++) {
+                final int neighbor = neighborLists[i * k + j];
+                if (neighbor > i || (neighbor != -1 && !contains(neighborLists, neighbor * k, k, i))) {
+                    first[count] = Math.min(i, neighbor);
+                    second[count] = Math.max(i, neighbor);
+                    length[count] = Tours.distance(x, y, i, neighbor);
+                    count++;
+                }
+            }
+        }
+        heap = new int[count];
+        size = count;
+        for (int i = 0; i < count; i++) {
+            heap[i] = i;
+        }
+        // Floyd's heap construction, bottom up in O(m)
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes the shortest remaining edge and returns its id.
+     */
+    int pop() {
+        final int root = heap[0];
+        size--;
+        heap[0] = heap[size];
+        siftDown(0);
+        return root;
+    }
+
+    int first(int edge) {
+        return first[edge];
+    }
+
+    int second(int edge) {
+        return second[edge];
+    }
+
+    private void siftDown(int index) {
+        final int edge = heap[index];
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && isShorter(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!isShorter(heap[child], edge)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = edge;
+    }
+
+    private boolean isShorter(int edge, int other) {
+        if (length[edge] != length[other]) {
+            return length[edge] < length[other];
+        }
+        if (first[edge] != first[other]) {
+            return first[edge] < first[other];
+        }
+        return second[edge] < second[other];
+    }
+
+    private static boolean contains(int[] array, int offset, int length, int value) {
+        for (int i = offset; i < offset + length; i++) {
+            if (array[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Euclidean distances computed on the fly from the coordinates, which are not copied.
+ */
+public final class EuclideanDistances implements DistanceProvider {
+
+    private final double[] x;
+    private final double[] y;
+
+    public EuclideanDistances(double[] x, double[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Got " + x.length + " x coordinates but " + y.length + " y");
+        }
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public int size() {
+        return x.length;
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        return Tours.distance(x, y, i, j);
+    }
+}
@@ -0,0 +1,116 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Builds the same kind of tour as {@link ClosestPairTSPSolver}, repeatedly connecting the closest pair of fragment
+ * endpoints, but in O(n log n) instead of O(n^3).
+ *
+ * Nearly every edge the closest pair heuristic picks joins a point to one of its nearest few neighbors, so only those
+ * candidate edges are considered.  They come from a {@link KdTree}, go into a binary heap ordered by length, and are
+ * popped shortest first.  An edge is taken unless one of its points already has two tour edges (tracked in a degree
+ * array) or both points already belong to the same fragment (tracked with union-find), since that would close a
+ * cycle early.  Once an edge is rejected it stays rejected, so a single pass over the heap gives the same result as
+ * rescanning every pair each round, as long as the candidate lists are long enough.
+ *
+ * Whatever fragments are left when the candidates run out get chained together nearest endpoint first, again using a
+ * k-d tree that only holds the endpoints still available.  With candidate lists of n - 1 points there's nothing left
+ * to chain, and the tour matches {@link ClosestPairTSPSolver} exactly.
+ */
+public class GreedyEdgeTSPSolver implements TSPSolver {
+
+    public static final int DEFAULT_NEIGHBOR_COUNT = 10;
+
+    private final int neighborCount;
+
+    public GreedyEdgeTSPSolver() {
+        this(DEFAULT_NEIGHBOR_COUNT);
+    }
+
+    public GreedyEdgeTSPSolver(int neighborCount) {
+        this.neighborCount = neighborCount;
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y) {
+        final int n = x.length;
+        if (n <= 1) {
+            return new int[n];
+        }
+        final int k = Math.min(neighborCount, n - 1);
+        final EdgeHeap candidates = new EdgeHeap(x, y, KdTree.neighborLists(x, y, k), k);
+
+        // Each point has at most two neighbors in the tour.  -1 marks an unused slot.
+        final int[] neighbors = new int[2 * n];
+        final int[] degree = new int[n];
+        final UnionFind fragments = new UnionFind(n);
+        for (int i = 0; i < 2 * n; i++) {
+            neighbors[i] = -1;
+        }
+        int edgesAdded = 0;
+        while (!candidates.isEmpty() && edgesAdded < n - 1) {
+            final int edge = candidates.pop();
+            final int first = candidates.first(edge);
+            final int second = candidates.second(edge);
+            if (degree[first] == 2 || degree[second] == 2 || !fragments.union(first, second)) {
+                continue;
+            }
+            neighbors[2 * first + degree[first]++] = second;
+            neighbors[2 * second + degree[second]++] = first;
+            edgesAdded++;
+        }
+
+        // Chain the fragments together:  walk to the far end of the current fragment, then jump to the nearest
+        // endpoint of any fragment that hasn't been used yet.
+        final KdTree endpoints = new KdTree(x, y);
+        int start = -1;
+        for (int i = 0; i < n; i++) {
+            if (degree[i] == 2) {
+                endpoints.remove(i);
+            } else if (start == -1) {
+                start = i;
+            }
+        }
+        int end = start;
+        int cameFrom = -1;
+        while (end != -1) {
+            endpoints.remove(end);
+            end = farEnd(neighbors, end, cameFrom);
+            endpoints.remove(end);
+            final int next = endpoints.nearest(x[end], y[end]);
+            if (next != -1) {
+                neighbors[2 * end + degree[end]++] = next;
+                neighbors[2 * next + degree[next]++] = end;
+            }
+            cameFrom = end;
+            end = next;
+        }
+
+        // Walk the single remaining path from its start
+        final int[] tour = new int[n];
+        int previous = -1;
+        int current = start;
+        for (int i = 0; i < n; i++) {
+            tour[i] = current;
+            final int next = neighbors[2 * current] == previous ? neighbors[2 * current + 1] : neighbors[2 * current];
+            previous = current;
+            current = next;
+        }
+        return tour;
+    }
+
+    /**
+     * Returns the other end of the fragment that starts at the given endpoint, walking away from cameFrom (or -1 if
+     * the endpoint hasn't been linked to anything outside its fragment).
+     */
+    private static int farEnd(int[] neighbors, int endpoint, int cameFrom) {
+        int previous = cameFrom;
+        int current = endpoint;
+        while (true) {
+            final int next = neighbors[2 * current] == previous ? neighbors[2 * current + 1] : neighbors[2 * current];
+            if (next == -1) {
+                return current;
+            }
+            previous = current;
+            current = next;
+        }
+    }
+}
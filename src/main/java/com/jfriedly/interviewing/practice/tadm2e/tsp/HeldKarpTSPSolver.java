@@ -0,0 +1,139 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.stream.IntStream;
+
+/**
+ * Finds the shortest tour through the input set with the Held-Karp dynamic program.  Executes in O(n^2 2^n) time and
+ * O(n 2^n) space.
+ *
+ * Every tour is a cycle, so fix point 0 as the start.  For every subset S of the other points and every point j in
+ * S, the table holds the length of the shortest path that starts at point 0, visits exactly the points in S, and
+ * ends at j.  Each entry only depends on entries for S - {j}, so the table can be filled in order of subset size,
+ * and the shortest tour is the best of those full-set paths plus the edge back to point 0.
+ *
+ * Subsets are bitmasks over points 1 through n - 1.  Since j is always in S, the table doesn't store the bit for j;
+ * each row j is indexed by S with that bit squeezed out, which halves the table.  The table still needs
+ * 4 (n - 1) 2^(n - 1) bytes:  roughly 180 MB for 22 points and 1.6 GB for {@link #MAX_POINTS}.
+ *
+ * In parallel mode, all of the subsets of each size are filled in concurrently on the common ForkJoin pool, since
+ * none of them depend on each other.
+ */
+public class HeldKarpTSPSolver implements DistanceTSPSolver {
+
+    public static final int MAX_POINTS = 25;
+
+    private final boolean parallel;
+
+    public HeldKarpTSPSolver() {
+        this(false);
+    }
+
+    public HeldKarpTSPSolver(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    @Override
+    public int[] findTour(DistanceProvider source) {
+        final int n = source.size();
+        if (n > MAX_POINTS) {
+            throw new IllegalArgumentException("Held-Karp can't solve " + n + " points; the limit is " + MAX_POINTS);
+        }
+        final int[] tour = new int[n];
+        if (n <= 3) {
+            // Every ordering of three or fewer points is the same cycle
+            for (int i = 0; i < n; i++) {
+                tour[i] = i;
+            }
+            return tour;
+        }
+
+        final double[] distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                distances[i * n + j] = source.distance(i, j);
+            }
+        }
+
+        // Bit b of a subset stands for point b + 1
+        final int m = n - 1;
+        final int rowSize = 1 << (m - 1);
+        final double[] table = new double[m * rowSize];
+        for (int j = 0; j < m; j++) {
+            table[j * rowSize] = distances[j + 1];
+        }
+        if (parallel) {
+            for (int size = 2; size <= m; size++) {
+                final int subsetSize = size;
+                IntStream.range(1, 1 << m)
+                        .parallel()
+                        .filter(subset -> Integer.bitCount(subset) == subsetSize)
+                        .forEach(subset -> fill(table, distances, n, subset));
+            }
+        } else {
+            // Numeric order already visits every subset after all of its own subsets
+            for (int subset = 1; subset < 1 << m; subset++) {
+                if (Integer.bitCount(subset) > 1) {
+                    fill(table, distances, n, subset);
+                }
+            }
+        }
+
+        // Close the cheapest full path back to point 0, then walk backwards through the table to recover the order
+        final int all = (1 << m) - 1;
+        int last = 0;
+        double shortest = Double.MAX_VALUE;
+        for (int j = 0; j < m; j++) {
+            final double length = table[j * rowSize + squeeze(all, j)] + distances[(j + 1) * n];
+            if (length < shortest) {
+                shortest = length;
+                last = j;
+            }
+        }
+        int subset = all;
+        for (int position = n - 1; position > 0; position--) {
+            tour[position] = last + 1;
+            final double length = table[last * rowSize + squeeze(subset, last)];
+            subset &= ~(1 << last);
+            for (int k = 0; k < m && subset != 0; k++) {
+                // The entry was computed as exactly this sum, so an exact comparison finds the predecessor
+                if ((subset & (1 << k)) != 0
+                        && table[k * rowSize + squeeze(subset, k)] + distances[(k + 1) * n + last + 1] == length) {
+                    last = k;
+                    break;
+                }
+            }
+        }
+        return tour;
+    }
+
+    /**
+     * Fills in the table entries for every endpoint j in the subset, assuming every smaller subset is already done.
+     */
+    private static void fill(double[] table, double[] distances, int n, int subset) {
+        final int rowSize = 1 << (n - 2);
+        for (int j = 0; j < n - 1; j++) {
+            if ((subset & (1 << j)) == 0) {
+                continue;
+            }
+            final int rest = subset & ~(1 << j);
+            double shortest = Double.MAX_VALUE;
+            for (int k = 0; k < n - 1; k++) {
+                if ((rest & (1 << k)) != 0) {
+                    final double length = table[k * rowSize + squeeze(rest, k)] + distances[(k + 1) * n + j + 1];
+                    if (length < shortest) {
+                        shortest = length;
+                    }
+                }
+            }
+            table[j * rowSize + squeeze(subset, j)] = shortest;
+        }
+    }
+
+    /**
+     * Removes bit j from the subset and shifts every higher bit down by one to fill the gap.
+     */
+    private static int squeeze(int subset, int j) {
+        final int lowBits = (1 << j) - 1;
+        return ((subset >>> 1) & ~lowBits) | (subset & lowBits);
+    }
+}
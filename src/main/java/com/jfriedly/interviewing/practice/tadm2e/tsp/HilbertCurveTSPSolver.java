@@ -0,0 +1,111 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.Arrays;
+
+/**
+ * Visits the points in the order a Hilbert curve passes through them (Platzman and Bartholdi 1989).
+ *
+ * A Hilbert curve fills the square by visiting its four quadrants one after another, each of them the same way,
+ * rotated and reflected so that each quadrant's path ends next to where the next one begins.  Points that are close
+ * along the curve are close in the plane, so sorting by position along the curve gives a tour with no distance
+ * computations at all.  On random uniform inputs it's typically 35-40% longer than optimal.
+ *
+ * Coordinates are scaled to 16-bit integers over the bounding box, so the curve position of each point is a 32-bit
+ * integer, computed without any loops or branches.  Each position gets packed into a long together with the point's
+ * index and the longs get sorted with {@link Arrays#parallelSort(long[])}, so the whole solver is one pass to compute
+ * keys and one primitive sort, O(n log n) with a very small constant.  That's fast enough for a million points in
+ * well under a second, as a starting tour for {@link LocalSearchTSPSolver} or {@link LinKernighanTSPSolver}.
+ *
+ * Points closer together than 1/65536th of the bounding box can land in the same cell, in which case they're visited
+ * in index order.
+ */
+public class HilbertCurveTSPSolver implements TSPSolver {
+
+    private static final int BITS = 16;
+    private static final int MAX_CELL = (1 << BITS) - 1;
+
+    @Override
+    public int[] findTour(double[] x, double[] y) {
+        final int n = x.length;
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        // Scale both axes the same way, so that distances along the curve stay proportional to distances in the plane
+        final double extent = Math.max(maxX - minX, maxY - minY);
+        final double scale = extent > 0 ? MAX_CELL / extent : 0;
+        final double originX = minX;
+        final double originY = minY;
+
+        // Curve positions take 32 bits and indexes 31, so shifting the position by 31 keeps every key positive
+        final long[] keys = new long[n];
+        Arrays.parallelSetAll(keys, i -> {
+            final int cellX = (int) ((x[i] - originX) * scale);
+            final int cellY = (int) ((y[i] - originY) * scale);
+            return (hilbertIndex(cellX, cellY) & 0xFFFFFFFFL) << 31 | i;
+        });
+        Arrays.parallelSort(keys);
+
+        final int[] tour = new int[n];
+        for (int i = 0; i < n; i++) {
+            tour[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+        return tour;
+    }
+
+    /**
+     * Returns the position of cell (x, y) along a 16-bit Hilbert curve, as an unsigned 32-bit integer.
+     *
+     * The usual algorithm walks down one bit at a time, rotating and reflecting the remaining bits depending on which
+     * quadrant each one picks.  Those transformations compose like a prefix scan, so this computes all of them at once
+     * on 16-bit lanes, in four doubling rounds, and then reads off the curve position from the result.
+     */
+    /* pp */ static int hilbertIndex(int x, int y) {
+        // Each bit position starts out with the transformation that its own quadrant implies, encoded in four masks
+        int a = x ^ y;
+        int b = MAX_CELL ^ a;
+        int c = MAX_CELL ^ (x | y);
+        int d = x & (y ^ MAX_CELL);
+        int bigA = a | (b >>> 1);
+        int bigB = (a >>> 1) ^ a;
+        int bigC = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+        int bigD = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+        for (int shift = 2; shift <= 8; shift <<= 1) {
+            a = bigA;
+            b = bigB;
+            c = bigC;
+            d = bigD;
+            if (shift < 8) {
+                bigA = (a & (a >>> shift)) ^ (b & (b >>> shift));
+                bigB = (a & (b >>> shift)) ^ (b & ((a ^ b) >>> shift));
+            }
+            bigC ^= (a & (c >>> shift)) ^ (b & (d >>> shift));
+            bigD ^= (b & (c >>> shift)) ^ ((a ^ b) & (d >>> shift));
+        }
+
+        // Undo the prefix scan's transformation, then recover the two bits of the index that each level picks
+        a = bigC ^ (bigC >>> 1);
+        b = bigD ^ (bigD >>> 1);
+        final int low = x ^ y;
+        final int high = b | (MAX_CELL ^ (low | a));
+        return (interleave(high) << 1) | interleave(low);
+    }
+
+    /**
+     * Spreads the low 16 bits of the argument out to the even bit positions.
+     */
+    private static int interleave(int bits) {
+        bits = (bits | (bits << 8)) & 0x00FF00FF;
+        bits = (bits | (bits << 4)) & 0x0F0F0F0F;
+        bits = (bits | (bits << 2)) & 0x33333333;
+        bits = (bits | (bits << 1)) & 0x55555555;
+        return bits;
+    }
+}
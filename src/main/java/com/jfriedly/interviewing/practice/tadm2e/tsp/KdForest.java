@@ -0,0 +1,220 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.Arrays;
+
+/**
+ * Dynamic set of points supporting insertion, deletion, and k-nearest-neighbor queries, built out of static
+ * {@link KdTree}s with the logarithmic method (Bentley and Saxe 1980).
+ *
+ * Level i holds either nothing or a k-d tree with room for at most 2^i points.  Inserting a point works like
+ * incrementing a binary counter:  the new point and every point in levels 0 through i - 1 get rebuilt into a single
+ * tree at the first empty level i, and the levels below it are emptied out.  A point moves up a level every time it's
+ * rebuilt, so it's rebuilt at most O(log n) times, and insertion costs O(log^2 n) amortized.  Queries search each of
+ * the O(log n) trees and merge the results.
+ *
+ * Deleting a point just removes it from whichever tree holds it.  Removed points still take up room until their tree
+ * is next rebuilt, so once they outnumber the live points, everything is rebuilt into a single tree.
+ *
+ * Points are identified by non-negative ids chosen by the caller.
+ */
+class KdForest {
+
+    private static final int LEVELS = 32;
+
+    private final KdTree[] trees = new KdTree[LEVELS];
+    // Per level:  the id and coordinates of each point, in the order the level's tree was built from
+    private final int[][] ids = new int[LEVELS][];
+    private final double[][] xs = new double[LEVELS][];
+    private final double[][] ys = new double[LEVELS][];
+    // Per id:  the level holding the point (-1 if there isn't one), and its index within that level
+    private int[] levels = new int[0];
+    private int[] locals = new int[0];
+    private int live;
+    private int slots;
+    // Scratch space for queries
+    private int[] levelNeighbors = new int[0];
+    private double[] distances = new double[0];
+
+    KdForest() {
+    }
+
+    /**
+     * Builds a forest holding point i of the given arrays, with id i, for every i.
+     */
+    KdForest(double[] x, double[] y) {
+        final int n = x.length;
+        ensureCapacity(n);
+        final int[] allIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            allIds[i] = i;
+        }
+        if (n > 0) {
+            build(levelFor(n), allIds, Arrays.copyOf(x, n), Arrays.copyOf(y, n), n);
+        }
+    }
+
+    int size() {
+        return live;
+    }
+
+    boolean contains(int id) {
+        return id >= 0 && id < levels.length && levels[id] != -1;
+    }
+
+    void add(int id, double x, double y) {
+        if (contains(id)) {
+            throw new IllegalArgumentException("Point " + id + " is already in the forest");
+        }
+        ensureCapacity(id + 1);
+        int level = 0;
+        int count = 1;
+        while (trees[level] != null) {
+            count += trees[level].size();
+            level++;
+        }
+        final int[] mergedIds = new int[count];
+        final double[] mergedX = new double[count];
+        final double[] mergedY = new double[count];
+        mergedIds[0] = id;
+        mergedX[0] = x;
+        mergedY[0] = y;
+        gather(level, mergedIds, mergedX, mergedY, 1);
+        build(level, mergedIds, mergedX, mergedY, count);
+    }
+
+    void remove(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Point " + id + " is not in the forest");
+        }
+        trees[levels[id]].remove(locals[id]);
+        levels[id] = -1;
+        live--;
+        if (2 * live < slots) {
+            final int count = live;
+            final int[] remainingIds = new int[count];
+            final double[] remainingX = new double[count];
+            final double[] remainingY = new double[count];
+            gather(LEVELS, remainingIds, remainingX, remainingY, 0);
+            if (count > 0) {
+                build(levelFor(count), remainingIds, remainingX, remainingY, count);
+            }
+        }
+    }
+
+    /**
+     * Writes the ids of the k points closest to (x, y) into neighbors, nearest first, and returns how many were
+     * written.  Ties are broken in favor of the lowest id.
+     */
+    int nearest(double x, double y, int k, int[] neighbors) {
+        if (levelNeighbors.length < k) {
+            levelNeighbors = new int[k];
+            distances = new double[k];
+        }
+        int found = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            if (trees[level] == null) {
+                continue;
+            }
+            final int count = trees[level].nearest(x, y, k, levelNeighbors);
+            for (int i = 0; i < count; i++) {
+                final int local = levelNeighbors[i];
+                final int id = ids[level][local];
+                final double dx = xs[level][local] - x;
+                final double dy = ys[level][local] - y;
+                final double distance = dx * dx + dy * dy;
+                // Insertion into the sorted best k so far
+                int j = found;
+                while (j > 0 && (distances[j - 1] > distance
+                        || (distances[j - 1] == distance && neighbors[j - 1] > id))) {
+                    if (j < k) {
+                        neighbors[j] = neighbors[j - 1];
+                        distances[j] = distances[j - 1];
+                    }
+                    j--;
+                }
+                if (j < k) {
+                    neighbors[j] = id;
+                    distances[j] = distance;
+                    found = Math.min(found + 1, k);
+                } else {
+                    // Each level's results are sorted, so the rest of them can't make it either
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Copies every live point in the levels below the given one into the arrays, starting at offset, and empties
+     * those levels out.
+     */
+    private void gather(int belowLevel, int[] gatheredIds, double[] gatheredX, double[] gatheredY, int offset) {
+        for (int level = 0; level < belowLevel; level++) {
+            if (trees[level] == null) {
+                continue;
+            }
+            for (int local = 0; local < ids[level].length; local++) {
+                if (!trees[level].isRemoved(local)) {
+                    gatheredIds[offset] = ids[level][local];
+                    gatheredX[offset] = xs[level][local];
+                    gatheredY[offset] = ys[level][local];
+                    offset++;
+                }
+            }
+            slots -= ids[level].length;
+            live -= trees[level].size();
+            trees[level] = null;
+            ids[level] = null;
+            xs[level] = null;
+            ys[level] = null;
+        }
+    }
+
+    /**
+     * Builds a level out of the given points, after sorting them by id.  Each tree breaks ties in favor of the lowest
+     * index within the level, so that way it also breaks them in favor of the lowest id.
+     */
+    private void build(int level, int[] levelIds, double[] levelX, double[] levelY, int count) {
+        final long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = (long) levelIds[i] << 32 | i;
+        }
+        Arrays.sort(order);
+        final double[] unsortedX = Arrays.copyOf(levelX, count);
+        final double[] unsortedY = Arrays.copyOf(levelY, count);
+        for (int i = 0; i < count; i++) {
+            final int from = (int) order[i];
+            levelIds[i] = (int) (order[i] >>> 32);
+            levelX[i] = unsortedX[from];
+            levelY[i] = unsortedY[from];
+        }
+        trees[level] = new KdTree(levelX, levelY);
+        ids[level] = levelIds;
+        xs[level] = levelX;
+        ys[level] = levelY;
+        for (int local = 0; local < count; local++) {
+            levels[levelIds[local]] = level;
+            locals[levelIds[local]] = local;
+        }
+        live += count;
+        slots += count;
+    }
+
+    /**
+     * Returns the lowest level with room for count points.
+     */
+    private static int levelFor(int count) {
+        return 32 - Integer.numberOfLeadingZeros(count - 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (levels.length < capacity) {
+            final int oldLength = levels.length;
+            final int newLength = Math.max(capacity, 2 * oldLength);
+            levels = Arrays.copyOf(levels, newLength);
+            locals = Arrays.copyOf(locals, newLength);
+            Arrays.fill(levels, oldLength, newLength, -1);
+        }
+    }
+}
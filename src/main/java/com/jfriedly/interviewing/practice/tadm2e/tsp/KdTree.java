@@ -0,0 +1,409 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Static 2-d tree over a fixed set of points, supporting nearest-neighbor queries and deletion (Skiena section 12.6,
+ * page 389).
+ *
+ * The tree is implicit:  it's built once by recursively partitioning an array of point indexes around the median of
+ * whichever axis has the larger spread, so the node for any index range [lo, hi) is the median at (lo + hi) / 2 and
+ * its children are the ranges on either side of it.  Coordinates are copied into tree order so that searches walk
+ * memory sequentially instead of bouncing around the caller's arrays.
+ *
+ * Deletion doesn't restructure the tree.  Removed points are marked in a bitmap, and every node keeps a count of the
+ * points still alive in its subtree so that searches can skip subtrees that have been emptied out entirely.  That
+ * keeps nearest-neighbor queries close to O(log n) even after most of the points are gone.
+ */
+class KdTree {
+
+    private static final int MIXED = -1;
+    private static final int EMPTY = -2;
+
+    private final int size;
+    // Point indexes, coordinates, and split axes, all in tree order
+    private final int[] indexes;
+    private final double[] xs;
+    private final double[] ys;
+    private final boolean[] splitOnX;
+    // Number of points not yet removed in the subtree rooted at each node
+    private final int[] alive;
+    // Position of each point index in tree order
+    private final int[] positions;
+    // One bit per point index, set once the point has been removed
+    private final long[] removed;
+    // Scratch state for the query in progress, so that queries don't allocate
+    private int nearestIndex;
+    private double nearestDistance;
+    // Max-heap of the best k points found so far by a k-nearest query, ordered by distance and then index
+    private int[] heapIndexes = new int[0];
+    private double[] heapDistances = new double[0];
+    private int heapSize;
+    private int heapCapacity;
+    // Labels by point index for nearestOutside queries, and the label shared by every point in each subtree (or
+    // MIXED), in tree order
+    private int[] labels;
+    private int[] subtreeLabels;
+
+    /**
+     * Builds a tree over all of the given points.  The arrays are not modified or retained.
+     */
+    KdTree(double[] x, double[] y) {
+        size = x.length;
+        indexes = new int[size];
+        xs = new double[size];
+        ys = new double[size];
+        splitOnX = new boolean[size];
+        alive = new int[size];
+        positions = new int[size];
+        removed = new long[(size + 63) >>> 6];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        build(x, y, 0, size);
+        for (int i = 0; i < size; i++) {
+            xs[i] = x[indexes[i]];
+            ys[i] = y[indexes[i]];
+            positions[indexes[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the number of points that haven't been removed.
+     */
+    int size() {
+        return size == 0 ? 0 : alive[size >>> 1];
+    }
+
+    boolean isRemoved(int index) {
+        return (removed[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Removes the point with the given index from the tree.  Removing a point twice has no effect.
+     */
+    void remove(int index) {
+        if (isRemoved(index)) {
+            return;
+        }
+        removed[index >>> 6] |= 1L << index;
+        final int position = positions[index];
+        int lo = 0;
+        int hi = size;
+        while (true) {
+            final int mid = (lo + hi) >>> 1;
+            alive[mid]--;
+            if (mid == position) {
+                return;
+            } else if (position < mid) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the remaining point closest to (x, y), or -1 if every point has been removed.  Ties are
+     * broken in favor of the lowest index, which matches the order a linear scan over the input would find them in.
+     */
+    int nearest(double x, double y) {
+        nearestIndex = -1;
+        nearestDistance = Double.POSITIVE_INFINITY;
+        nearest(x, y, 0, size);
+        return nearestIndex;
+    }
+
+    private void nearest(double x, double y, int lo, int hi) {
+        if (lo >= hi) {
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        if (alive[mid] == 0) {
+            return;
+        }
+        final double dx = xs[mid] - x;
+        final double dy = ys[mid] - y;
+        if (!isRemoved(indexes[mid])) {
+            final double distance = dx * dx + dy * dy;
+            if (distance < nearestDistance || (distance == nearestDistance && indexes[mid] < nearestIndex)) {
+                nearestDistance = distance;
+                nearestIndex = indexes[mid];
+            }
+        }
+
+        // Search the side of the splitting line that contains the query point first, then only cross over if the
+        // line is no farther away than the best point found so far.
+        final double offset = splitOnX[mid] ? -dx : -dy;
+        if (offset < 0) {
+            nearest(x, y, lo, mid);
+            if (offset * offset <= nearestDistance) {
+                nearest(x, y, mid + 1, hi);
+            }
+        } else {
+            nearest(x, y, mid + 1, hi);
+            if (offset * offset <= nearestDistance) {
+                nearest(x, y, lo, mid);
+            }
+        }
+    }
+
+    /**
+     * Tags every point with a non-negative label, looked up by point index, for {@link #nearestOutside} queries.  The
+     * array is retained, so it mustn't change until the labels are set again.
+     */
+    void setLabels(int[] labels) {
+        this.labels = labels;
+        if (subtreeLabels == null) {
+            subtreeLabels = new int[size];
+        }
+        labelSubtree(0, size);
+    }
+
+    private int labelSubtree(int lo, int hi) {
+        if (lo >= hi) {
+            return EMPTY;
+        }
+        final int mid = (lo + hi) >>> 1;
+        final int left = labelSubtree(lo, mid);
+        final int right = labelSubtree(mid + 1, hi);
+        int label = labels[indexes[mid]];
+        if ((left != EMPTY && left != label) || (right != EMPTY && right != label)) {
+            label = MIXED;
+        }
+        subtreeLabels[mid] = label;
+        return label;
+    }
+
+    /**
+     * Returns the index of the remaining point closest to (x, y) whose label is different from the given one, as long
+     * as it's strictly closer than maxDistance, or -1 otherwise.  Ties are broken in favor of the lowest index.
+     * Subtrees whose points all have the given label are skipped without being searched.
+     */
+    int nearestOutside(double x, double y, int label, double maxDistance) {
+        nearestIndex = -1;
+        nearestDistance = maxDistance * maxDistance;
+        nearestOutside(x, y, label, 0, size);
+        return nearestIndex;
+    }
+
+    private void nearestOutside(double x, double y, int label, int lo, int hi) {
+        if (lo >= hi) {
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        if (alive[mid] == 0 || subtreeLabels[mid] == label) {
+            return;
+        }
+        final double dx = xs[mid] - x;
+        final double dy = ys[mid] - y;
+        if (!isRemoved(indexes[mid]) && labels[indexes[mid]] != label) {
+            final double distance = dx * dx + dy * dy;
+            if (distance < nearestDistance || (distance == nearestDistance && indexes[mid] < nearestIndex)) {
+                nearestDistance = distance;
+                nearestIndex = indexes[mid];
+            }
+        }
+
+        final double offset = splitOnX[mid] ? -dx : -dy;
+        if (offset < 0) {
+            nearestOutside(x, y, label, lo, mid);
+            if (offset * offset <= nearestDistance) {
+                nearestOutside(x, y, label, mid + 1, hi);
+            }
+        } else {
+            nearestOutside(x, y, label, mid + 1, hi);
+            if (offset * offset <= nearestDistance) {
+                nearestOutside(x, y, label, lo, mid);
+            }
+        }
+    }
+
+    /**
+     * Writes the indexes of the k remaining points closest to (x, y) into neighbors, nearest first, and returns how
+     * many were written.  That's fewer than k only if fewer than k points remain.  Ties are broken in favor of the
+     * lowest index.
+     */
+    int nearest(double x, double y, int k, int[] neighbors) {
+        if (heapIndexes.length < k) {
+            heapIndexes = new int[k];
+            heapDistances = new double[k];
+        }
+        heapSize = 0;
+        heapCapacity = k;
+        if (k > 0) {
+            nearest(x, y, 0, size, k);
+        }
+        final int count = heapSize;
+        for (int i = count - 1; i >= 0; i--) {
+            neighbors[i] = heapIndexes[0];
+            heapSize--;
+            heapIndexes[0] = heapIndexes[heapSize];
+            heapDistances[0] = heapDistances[heapSize];
+            siftDown();
+        }
+        return count;
+    }
+
+    /**
+     * Builds candidate neighbor lists for every point:  row i of the result (entries i * k through i * k + k - 1) holds
+     * the k points nearest to point i, not counting point i itself, nearest first.  Rows are padded with -1 when
+     * there are k or fewer points in total.
+     */
+    static int[] neighborLists(double[] x, double[] y, int k) {
+        final int n = x.length;
+        final int[] lists = new int[n * k];
+        final int[] nearest = new int[k + 1];
+        final KdTree tree = new KdTree(x, y);
+        for (int i = 0; i < n; i++) {
+            final int count = tree.nearest(x[i], y[i], k + 1, nearest);
+            int written = 0;
+            for (int j = 0; j < count && written < k; j++) {
+                if (nearest[j] != i) {
+                    lists[i * k + written++] = nearest[j];
+                }
+            }
+            while (written < k) {
+                lists[i * k + written++] = -1;
+            }
+        }
+        return lists;
+    }
+
+    private void nearest(double x, double y, int lo, int hi, int k) {
+        if (lo >= hi) {
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        if (alive[mid] == 0) {
+            return;
+        }
+        final double dx = xs[mid] - x;
+        final double dy = ys[mid] - y;
+        if (!isRemoved(indexes[mid])) {
+            offer(indexes[mid], dx * dx + dy * dy);
+        }
+
+        final double offset = splitOnX[mid] ? -dx : -dy;
+        if (offset < 0) {
+            nearest(x, y, lo, mid, k);
+            if (heapSize < k || offset * offset <= heapDistances[0]) {
+                nearest(x, y, mid + 1, hi, k);
+            }
+        } else {
+            nearest(x, y, mid + 1, hi, k);
+            if (heapSize < k || offset * offset <= heapDistances[0]) {
+                nearest(x, y, lo, mid, k);
+            }
+        }
+    }
+
+    private void offer(int index, double distance) {
+        if (heapSize < heapCapacity) {
+            // Sift up
+            int child = heapSize++;
+            while (child > 0) {
+                final int parent = (child - 1) / 2;
+                if (!isFarther(distance, index, heapDistances[parent], heapIndexes[parent])) {
+                    break;
+                }
+                heapIndexes[child] = heapIndexes[parent];
+                heapDistances[child] = heapDistances[parent];
+                child = parent;
+            }
+            heapIndexes[child] = index;
+            heapDistances[child] = distance;
+        } else if (isFarther(heapDistances[0], heapIndexes[0], distance, index)) {
+            heapIndexes[0] = index;
+            heapDistances[0] = distance;
+            siftDown();
+        }
+    }
+
+    private void siftDown() {
+        final int index = heapIndexes[0];
+        final double distance = heapDistances[0];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            final int right = child + 1;
+            if (right < heapSize
+                    && isFarther(heapDistances[right], heapIndexes[right], heapDistances[child], heapIndexes[child])) {
+                child = right;
+            }
+            if (!isFarther(heapDistances[child], heapIndexes[child], distance, index)) {
+                break;
+            }
+            heapIndexes[parent] = heapIndexes[child];
+            heapDistances[parent] = heapDistances[child];
+            parent = child;
+        }
+        heapIndexes[parent] = index;
+        heapDistances[parent] = distance;
+    }
+
+    private static boolean isFarther(double distance, int index, double otherDistance, int otherIndex) {
+        return distance > otherDistance || (distance == otherDistance && index > otherIndex);
+    }
+
+    /**
+     * Recursively partitions indexes[lo, hi) around the median of its wider axis and records subtree sizes.
+     */
+    private void build(double[] x, double[] y, int lo, int hi) {
+        if (lo >= hi) {
+            return;
+        }
+        final int mid = (lo + hi) >>> 1;
+        double minX = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = lo; i < hi; i++) {
+            minX = Math.min(minX, x[indexes[i]]);
+            maxX = Math.max(maxX, x[indexes[i]]);
+            minY = Math.min(minY, y[indexes[i]]);
+            maxY = Math.max(maxY, y[indexes[i]]);
+        }
+        final boolean byX = maxX - minX >= maxY - minY;
+        select(indexes, byX ? x : y, lo, hi - 1, mid);
+        splitOnX[mid] = byX;
+        alive[mid] = hi - lo;
+        build(x, y, lo, mid);
+        build(x, y, mid + 1, hi);
+    }
+
+    /**
+     * Quickselect:  rearranges indexes[lo, hi] so that the index at position k has the k-th smallest coordinate, with
+     * nothing larger before it and nothing smaller after it.
+     */
+    /* pp */ static void select(int[] indexes, double[] coordinates, int lo, int hi, int k) {
+        while (lo < hi) {
+            final double pivot = coordinates[indexes[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinates[indexes[i]] < pivot) {
+                    i++;
+                }
+                while (coordinates[indexes[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    final int temp = indexes[i];
+                    indexes[i] = indexes[j];
+                    indexes[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
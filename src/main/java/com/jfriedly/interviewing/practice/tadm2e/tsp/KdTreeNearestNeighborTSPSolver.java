@@ -0,0 +1,32 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Finds the same nearest neighbor tour as {@link NearestNeighborTSPSolver}, but looks up each nearest neighbor in a
+ * {@link KdTree} instead of scanning every input point.
+ *
+ * Visited points are deleted from the tree as the tour grows, so each step costs roughly O(log n) instead of O(n) and
+ * the whole tour takes O(n log n).  Ties are broken the same way as the linear scan, so both solvers return identical
+ * tours for inputs without duplicate points.
+ */
+public class KdTreeNearestNeighborTSPSolver implements TSPSolver {
+
+    @Override
+    public int[] findTour(double[] x, double[] y) {
+        final int n = x.length;
+        final int[] tour = new int[n];
+        if (n == 0) {
+            return tour;
+        }
+
+        final KdTree unvisited = new KdTree(x, y);
+        int current = 0;
+        unvisited.remove(current);
+        for (int i = 1; i < n; i++) {
+            current = unvisited.nearest(x[current], y[current]);
+            unvisited.remove(current);
+            tour[i] = current;
+        }
+
+        return tour;
+    }
+}
@@ -0,0 +1,408 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Improves the tour found by another {@link TSPSolver} with Lin-Kernighan moves (Lin and Kernighan 1973), then keeps
+ * perturbing and re-improving it until its time budget runs out (chained Lin-Kernighan, Martin, Otto, and Felten
+ * 1991).  On random uniform inputs this usually ends up within a few percent of optimal.
+ *
+ * A Lin-Kernighan move is a chain of 2-opt flips.  It starts by breaking one tour edge (t1, t2), which leaves a path
+ * from t1 to t2.  Each step then adds an edge from t2 to one of its candidate neighbors t3 and breaks one of t3's
+ * edges, (t3, t4), so that t4 becomes the new end of the path.  Closing the path with (t4, t1) always gives a valid
+ * tour, so each step is applied to the tour as a flip right away.  The chain stops as soon as closing it would give
+ * a shorter tour, and otherwise keeps going as long as the edges it has added are still shorter than the ones it has
+ * broken.  If it runs out of options, the flips are undone.  A few alternatives are tried at each of the first
+ * levels of the chain, and only the best one after that.
+ *
+ * Points are examined in a queue of "don't look bits", just like {@link LocalSearchTSPSolver}, and a point that no
+ * chain can improve gets one more try with {@link OrOpt} moves, which a chain of flips can't always find.
+ *
+ * Once the tour is locally optimal, each round makes a random double-bridge kick:  two short paths next to each other
+ * in the tour swap places, which no sequence of improving flips can undo.  Only the points around the kick get
+ * re-examined, and if the tour doesn't end up shorter than it was before the kick, every flip since the kick is
+ * undone.
+ *
+ * Every flip reverses a path, which would cost O(n) in an array.  The tour is kept in a {@link TwoLevelTour} instead,
+ * so each one costs O(sqrt n).
+ *
+ * The time budget covers the whole search, including building the initial tour.  If it runs out before the tour is
+ * locally optimal, the search stops where it is.  Small inputs stop early, after {@link #MAX_KICKS_PER_POINT} kicks
+ * per point.  When solving with a {@link Deadline}, the deadline takes the place of the time budget, and it's passed on
+ * to the delegate if that's an {@link AnytimeTSPSolver} too.
+ */
+public class LinKernighanTSPSolver implements AnytimeTSPSolver {
+
+    public static final int DEFAULT_NEIGHBOR_COUNT = 8;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+    public static final int MAX_KICKS_PER_POINT = 10;
+    // Longest chain of flips tried from a single starting edge
+    private static final int MAX_DEPTH = 50;
+    // Alternatives tried at each of the first few levels of a chain; every deeper level only tries one
+    private static final int[] BREADTH = {5, 3, 1};
+    private static final int MAX_KICK_SEGMENT_LENGTH = 50;
+    // Moves must shorten the tour by at least this much, so that rounding error can't make the search cycle
+    private static final double EPSILON = 1e-10;
+    private static final long SEED = 1973;
+
+    private final TSPSolver delegate;
+    private final long timeBudgetMillis;
+    private final int neighborCount;
+
+    public LinKernighanTSPSolver() {
+        this(DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    public LinKernighanTSPSolver(long timeBudgetMillis) {
+        this(new GreedyEdgeTSPSolver(), timeBudgetMillis);
+    }
+
+    public LinKernighanTSPSolver(TSPSolver delegate, long timeBudgetMillis) {
+        this(delegate, timeBudgetMillis, DEFAULT_NEIGHBOR_COUNT);
+    }
+
+    public LinKernighanTSPSolver(TSPSolver delegate, long timeBudgetMillis, int neighborCount) {
+        if (timeBudgetMillis < 0) {
+            throw new IllegalArgumentException("Time budget must not be negative: " + timeBudgetMillis);
+        }
+        this.delegate = delegate;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.neighborCount = neighborCount;
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y) {
+        return findTour(x, y, Deadline.after(timeBudgetMillis, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y, Deadline deadline, TourListener listener) {
+        final Progress progress = new Progress(deadline, listener);
+        final int[] tour = delegate instanceof AnytimeTSPSolver
+                ? ((AnytimeTSPSolver) delegate).findTour(x, y, deadline)
+                : delegate.findTour(x, y);
+        if (tour.length < 5) {
+            // Every tour of four or fewer points is already optimal
+            return progress.finish(tour, Tours.length(x, y, tour));
+        }
+        final Search search = new Search(x, y, tour, KdTree.neighborLists(x, y, neighborCount), neighborCount,
+                progress);
+        search.run(tour);
+        return progress.finish(search.tour.toArray(), search.length);
+    }
+
+    /**
+     * Improves the tour with Lin-Kernighan and Or-opt moves until none of them can shorten it around any of the given
+     * points, without any kicks, and returns the result.  Only the given points start the search; any point whose row
+     * of neighbors (in the same layout as {@link KdTree#neighborLists}) is all -1 can be moved but never starts a
+     * move of its own, so callers that only care about part of the tour only need candidates for that part.
+     */
+    /* pp */ static int[] repair(double[] x, double[] y, int[] tour, int[] neighbors, int neighborCount, int[] points,
+                                 Deadline deadline) {
+        if (tour.length < 5) {
+            return tour;
+        }
+        final Search search = new Search(x, y, tour, neighbors, neighborCount,
+                new Progress(deadline, TourListener.NONE));
+        for (int point : points) {
+            search.push(point);
+        }
+        search.descend(false);
+        return search.tour.toArray();
+    }
+
+    /**
+     * One run of the search over a tour.
+     */
+    private static class Search implements OrOpt.Tour {
+        private final double[] x;
+        private final double[] y;
+        private final int n;
+        private final TwoLevelTour tour;
+        private final int[] neighbors;
+        private final int neighborCount;
+        private final Progress progress;
+        private final Random random = new Random(SEED);
+        private final OrOpt orOpt;
+        // Circular queue of points whose don't look bits are off
+        private final int[] queue;
+        private final boolean[] queued;
+        private int queueHead;
+        private int queueSize;
+        // Edges added by the chain being built, which it mustn't break again
+        private final int[] addedFrom = new int[MAX_DEPTH];
+        private final int[] addedTo = new int[MAX_DEPTH];
+        // Ranked choices of t3 at each depth of the chain, with the gain left after each one
+        private final int[] candidates;
+        private final double[] candidateGains;
+        // Every flip since the last checkpoint, as the four points passed to TwoLevelTour.move
+        private int[] journal = new int[64];
+        private int journalSize;
+        // Change in tour length since the last checkpoint, and the length as of that checkpoint
+        private double delta;
+        private double length;
+
+        private Search(double[] x, double[] y, int[] tour, int[] neighbors, int neighborCount, Progress progress) {
+            this.x = x;
+            this.y = y;
+            this.n = tour.length;
+            this.tour = new TwoLevelTour(tour);
+            this.neighbors = neighbors;
+            this.neighborCount = neighborCount;
+            this.progress = progress;
+            length = Tours.length(x, y, tour);
+            queue = new int[n];
+            queued = new boolean[n];
+            candidates = new int[MAX_DEPTH * neighborCount];
+            candidateGains = new double[MAX_DEPTH * neighborCount];
+            orOpt = new OrOpt(this, neighborCount);
+        }
+
+        private void run(int[] initial) {
+            for (int i = 0; i < n; i++) {
+                push(initial[i]);
+            }
+            final boolean finished = descend(false);
+            length += delta;
+            if (!finished || n < 8) {
+                return;
+            }
+            for (long kicks = (long) MAX_KICKS_PER_POINT * n; kicks > 0 && !progress.isExpired(); kicks--) {
+                journalSize = 0;
+                delta = 0;
+                kick();
+                descend(true);
+                if (delta > -EPSILON) {
+                    undo(0);
+                } else {
+                    length += delta;
+                    if (progress.isDue()) {
+                        progress.publish(tour.toArray(), length);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Improves the tour until every point's don't look bit is on.  Returns false if the deadline passed first.
+         * Unless keepJournal is set, flips are forgotten as soon as they've been committed.
+         */
+        private boolean descend(boolean keepJournal) {
+            for (int iterations = 1; queueSize > 0; iterations++) {
+                if ((iterations & 0xFF) == 0) {
+                    if (progress.isExpired()) {
+                        return false;
+                    }
+                    if (!keepJournal && progress.isDue()) {
+                        progress.publish(tour.toArray(), length + delta);
+                    }
+                }
+                final int t1 = queue[queueHead];
+                queueHead = (queueHead + 1) % n;
+                queueSize--;
+                queued[t1] = false;
+                if (linKernighan(t1) || orOpt(t1)) {
+                    push(t1);
+                }
+                if (!keepJournal) {
+                    journalSize = 0;
+                }
+            }
+            return true;
+        }
+
+        private boolean linKernighan(int t1) {
+            final int next = tour.next(t1);
+            final int previous = tour.previous(t1);
+            return step(0, t1, next, distance(t1, next)) || step(0, t1, previous, distance(t1, previous));
+        }
+
+        /**
+         * Extends a chain of flips whose open path runs from t1 to t2, given the total length of the edges it has
+         * broken minus the edges it has added.  Either commits an improving chain and returns true, or leaves the
+         * tour as it found it and returns false.
+         */
+        private boolean step(int depth, int t1, int t2, double gain) {
+            // Rank t2's candidates by the gain left after breaking (t3, t4) as well, not just adding (t2, t3), which
+            // finds improving chains sooner (Johnson and McGeoch's lookahead)
+            final int offset = depth * neighborCount;
+            final boolean forward = tour.next(t1) == t2;
+            int count = 0;
+            for (int i = 0; i < neighborCount; i++) {
+                final int t3 = neighbors[t2 * neighborCount + i];
+                if (t3 == -1) {
+                    break;
+                }
+                final double openGain = gain - distance(t2, t3);
+                if (openGain <= EPSILON) {
+                    // Neighbors are sorted, so no later one leaves any gain either
+                    break;
+                }
+                if (t3 == tour.next(t2) || t3 == tour.previous(t2)) {
+                    continue;
+                }
+                // Breaking (t3, t4) and closing with (t4, t1) has to leave a single cycle
+                final int t4 = forward ? tour.previous(t3) : tour.next(t3);
+                if (wasAdded(depth, t3, t4)) {
+                    continue;
+                }
+                final double brokenGain = openGain + distance(t3, t4);
+                int k = count;
+                while (k > 0 && candidateGains[offset + k - 1] < brokenGain) {
+                    candidates[offset + k] = candidates[offset + k - 1];
+                    candidateGains[offset + k] = candidateGains[offset + k - 1];
+                    k--;
+                }
+                candidates[offset + k] = t3;
+                candidateGains[offset + k] = brokenGain;
+                count++;
+            }
+
+            final int breadth = Math.min(count, BREADTH[Math.min(depth, BREADTH.length - 1)]);
+            for (int i = 0; i < breadth; i++) {
+                final int t3 = candidates[offset + i];
+                final double brokenGain = candidateGains[offset + i];
+                // Undoing a flip can leave the tour running the other way around, so t4 has to be found again
+                final int t4 = tour.next(t1) == t2 ? tour.previous(t3) : tour.next(t3);
+                flip(t2, t1, t3, t4);
+                addedFrom[depth] = t2;
+                addedTo[depth] = t3;
+                final double closedGain = brokenGain - distance(t4, t1);
+                if (closedGain > EPSILON) {
+                    delta -= closedGain;
+                } else if (depth + 1 >= MAX_DEPTH || !step(depth + 1, t1, t4, brokenGain)) {
+                    unflip();
+                    continue;
+                }
+                push(t2);
+                push(t3);
+                push(t4);
+                return true;
+            }
+            return false;
+        }
+
+        private boolean wasAdded(int depth, int a, int b) {
+            for (int i = 0; i < depth; i++) {
+                if ((addedFrom[i] == a && addedTo[i] == b) || (addedFrom[i] == b && addedTo[i] == a)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean orOpt(int t1) {
+            final double gain = orOpt.improve(t1);
+            if (gain == 0) {
+                return false;
+            }
+            delta -= gain;
+            for (int point : orOpt.touched()) {
+                push(point);
+            }
+            return true;
+        }
+
+        /**
+         * Double-bridge kick:  picks two short paths that follow each other, a1 [b1 .. b2] [c1 .. c2] d1, and swaps
+         * them to get a1 [c1 .. c2] [b1 .. b2] d1.
+         */
+        private void kick() {
+            final int maxLength = Math.min(MAX_KICK_SEGMENT_LENGTH, (n - 2) / 2);
+            final int a1 = random.nextInt(n);
+            final int b1 = tour.next(a1);
+            int b2 = b1;
+            for (int i = random.nextInt(maxLength); i > 0; i--) {
+                b2 = tour.next(b2);
+            }
+            final int c1 = tour.next(b2);
+            int c2 = c1;
+            for (int i = random.nextInt(maxLength); i > 0; i--) {
+                c2 = tour.next(c2);
+            }
+            final int d1 = tour.next(c2);
+            delta += distance(a1, c1) + distance(c2, b1) + distance(b2, d1)
+                    - distance(a1, b1) - distance(b2, c1) - distance(c2, d1);
+            flip(a1, b1, c2, d1);
+            flip(a1, c2, c1, b2);
+            flip(c2, b2, b1, d1);
+            push(a1);
+            push(b1);
+            push(b2);
+            push(c1);
+            push(c2);
+            push(d1);
+        }
+
+        /**
+         * 2-opt move on the tour that can be undone.
+         */
+        @Override
+        public void flip(int a, int b, int c, int d) {
+            tour.move(a, b, c, d);
+            if (journalSize + 4 > journal.length) {
+                journal = Arrays.copyOf(journal, 2 * journal.length);
+            }
+            journal[journalSize++] = a;
+            journal[journalSize++] = b;
+            journal[journalSize++] = c;
+            journal[journalSize++] = d;
+        }
+
+        /**
+         * Undoes the most recent flip.  The move that removed (a, b) and (c, d) added (a, c) and (b, d), so removing
+         * those again puts the original edges back.
+         */
+        private void unflip() {
+            journalSize -= 4;
+            tour.move(journal[journalSize], journal[journalSize + 2], journal[journalSize + 1],
+                    journal[journalSize + 3]);
+        }
+
+        private void undo(int mark) {
+            while (journalSize > mark) {
+                unflip();
+            }
+        }
+
+        @Override
+        public int size() {
+            return n;
+        }
+
+        @Override
+        public int next(int point) {
+            return tour.next(point);
+        }
+
+        @Override
+        public int previous(int point) {
+            return tour.previous(point);
+        }
+
+        @Override
+        public boolean between(int first, int point, int last) {
+            return tour.between(first, point, last);
+        }
+
+        @Override
+        public int candidates(int point, int[] buffer) {
+            return OrOpt.candidates(neighbors, neighborCount, point, buffer);
+        }
+
+        @Override
+        public double distance(int i, int j) {
+            return Tours.distance(x, y, i, j);
+        }
+
+        private void push(int point) {
+            if (!queued[point]) {
+                queued[point] = true;
+                queue[(queueHead + queueSize) % n] = point;
+                queueSize++;
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.Arrays;
+
+/**
+ * Improves the tour found by another {@link TSPSolver} with 2-opt and Or-opt moves until neither can shorten it any
+ * further (Skiena section 16.4, page 535 describes 2-opt as "local search").
+ *
+ *  -   A 2-opt move removes two edges and reconnects the two resulting paths the other way around, which reverses
+ *      one of them.  It's what untangles crossing edges.
+ *  -   An {@link OrOpt} move cuts out a segment of up to three consecutive points and reinserts it, in either direction,
+ *      between two adjacent points somewhere else in the tour.
+ *
+ * Trying every pair of edges would take O(n^2) per move, so moves are only considered between a point and the
+ * handful of points nearest to it (its candidate neighbors, found with a {@link KdTree}), and only when the new edge
+ * is shorter than the one it replaces.  Points sit in a queue of "don't look bits" (Bentley 1992):  a point is only
+ * examined again once a move changes one of its edges, so after the first pass the work concentrates around the
+ * parts of the tour that are still changing.  Together, each pass takes close to linear time.
+ *
+ * The tour is stored as an array plus each point's position in it.  Reversals flip whichever side of the tour is
+ * shorter, so a 2-opt move costs at most n / 2 swaps, and an Or-opt move is made out of three 2-opt moves.
+ *
+ * If the deadline passes before the tour is locally optimal, the search stops where it is.  The deadline is passed on
+ * to the delegate if it's an {@link AnytimeTSPSolver} too.
+ */
+public class LocalSearchTSPSolver implements AnytimeTSPSolver {
+
+    public static final int DEFAULT_NEIGHBOR_COUNT = 8;
+    // Moves must shorten the tour by at least this much, so that rounding error can't make the search cycle
+    private static final double EPSILON = 1e-10;
+
+    private final TSPSolver delegate;
+    private final int neighborCount;
+
+    public LocalSearchTSPSolver() {
+        this(new KdTreeNearestNeighborTSPSolver());
+    }
+
+    public LocalSearchTSPSolver(TSPSolver delegate) {
+        this(delegate, DEFAULT_NEIGHBOR_COUNT);
+    }
+
+    public LocalSearchTSPSolver(TSPSolver delegate, int neighborCount) {
+        this.delegate = delegate;
+        this.neighborCount = neighborCount;
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y, Deadline deadline, TourListener listener) {
+        final int[] tour = delegate instanceof AnytimeTSPSolver
+                ? ((AnytimeTSPSolver) delegate).findTour(x, y, deadline)
+                : delegate.findTour(x, y);
+        return improve(x, y, tour, deadline, listener);
+    }
+
+    /**
+     * Returns a locally optimal tour at least as short as the given one, which isn't modified.
+     */
+    public int[] improve(double[] x, double[] y, int[] tour) {
+        return improve(x, y, tour, Deadline.none(), TourListener.NONE);
+    }
+
+    /**
+     * Returns a tour at least as short as the given one, which isn't modified.  It's locally optimal unless the
+     * deadline passed first.
+     */
+    public int[] improve(double[] x, double[] y, int[] tour, Deadline deadline, TourListener listener) {
+        final int[] improved = Arrays.copyOf(tour, tour.length);
+        final Progress progress = new Progress(deadline, listener);
+        if (tour.length < 5) {
+            // Every tour of four or fewer points is already 2-opt and Or-opt optimal
+            return progress.finish(improved, Tours.length(x, y, improved));
+        }
+        final Improvement improvement = new Improvement(x, y, improved, KdTree.neighborLists(x, y, neighborCount),
+                neighborCount, progress);
+        improvement.run();
+        return progress.finish(improved, improvement.tourLength);
+    }
+
+    /**
+     * One run of the local search over a tour, which is modified in place.
+     */
+    private static class Improvement implements OrOpt.Tour {
+        private final double[] x;
+        private final double[] y;
+        private final int n;
+        private final int[] tour;
+        private final int[] positions;
+        private final int[] neighbors;
+        private final int neighborCount;
+        // Circular queue of points whose don't look bits are off
+        private final int[] queue;
+        private final boolean[] queued;
+        private int queueHead;
+        private int queueSize;
+        private final Progress progress;
+        private final OrOpt orOpt;
+        private double tourLength;
+
+        private Improvement(double[] x, double[] y, int[] tour, int[] neighbors, int neighborCount,
+                            Progress progress) {
+            this.x = x;
+            this.y = y;
+            this.n = tour.length;
+            this.tour = tour;
+            this.neighbors = neighbors;
+            this.neighborCount = neighborCount;
+            this.progress = progress;
+            tourLength = Tours.length(x, y, tour);
+            positions = new int[n];
+            queue = new int[n];
+            queued = new boolean[n];
+            for (int i = 0; i < n; i++) {
+                positions[tour[i]] = i;
+            }
+            orOpt = new OrOpt(this, neighborCount);
+        }
+
+        private void run() {
+            for (int i = 0; i < n; i++) {
+                push(tour[i]);
+            }
+            for (int iterations = 0; queueSize > 0; iterations++) {
+                if ((iterations & 0xFF) == 0) {
+                    if (progress.isExpired()) {
+                        return;
+                    }
+                    if (progress.isDue()) {
+                        progress.publish(tour, tourLength);
+                    }
+                }
+                final int a = queue[queueHead];
+                queueHead = (queueHead + 1) % n;
+                queueSize--;
+                queued[a] = false;
+                if (twoOpt(a) || orOpt(a)) {
+                    push(a);
+                }
+            }
+        }
+
+        /**
+         * Tries to replace one of a's tour edges, (a, b), and some other edge (c, d) with (a, c) and (b, d).
+         */
+        private boolean twoOpt(int a) {
+            for (int direction = 0; direction < 2; direction++) {
+                final int b = direction == 0 ? next(a) : previous(a);
+                final double ab = distance(a, b);
+                for (int i = 0; i < neighborCount; i++) {
+                    final int c = neighbors[a * neighborCount + i];
+                    if (c == -1) {
+                        break;
+                    }
+                    final double ac = distance(a, c);
+                    if (ac >= ab) {
+                        // Neighbors are sorted, so no later one can make a shorter first edge either
+                        break;
+                    }
+                    final int d = direction == 0 ? next(c) : previous(c);
+                    if (d == a) {
+                        continue;
+                    }
+                    final double change = ac + distance(b, d) - ab - distance(c, d);
+                    if (change < -EPSILON) {
+                        flip(a, b, c, d);
+                        tourLength += change;
+                        push(b);
+                        push(c);
+                        push(d);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean orOpt(int a) {
+            final double gain = orOpt.improve(a);
+            if (gain == 0) {
+                return false;
+            }
+            tourLength -= gain;
+            for (int point : orOpt.touched()) {
+                push(point);
+            }
+            return true;
+        }
+
+        @Override
+        public void flip(int a, int b, int c, int d) {
+            if (next(a) == b) {
+                reverse(b, c);
+            } else {
+                reverse(c, b);
+            }
+        }
+
+        /**
+         * Reverses the path that runs forward from one point to another.  If that's more than half the tour, the rest
+         * of the tour is reversed instead, which results in the same cycle.
+         */
+        private void reverse(int from, int to) {
+            int i = positions[from];
+            int j = positions[to];
+            int length = (j - i + n) % n + 1;
+            if (2 * length > n) {
+                final int complementStart = (j + 1) % n;
+                j = (i - 1 + n) % n;
+                i = complementStart;
+                length = n - length;
+            }
+            for (int swaps = length / 2; swaps > 0; swaps--) {
+                final int first = tour[i];
+                final int second = tour[j];
+                tour[i] = second;
+                positions[second] = i;
+                tour[j] = first;
+                positions[first] = j;
+                i = i + 1 == n ? 0 : i + 1;
+                j = j == 0 ? n - 1 : j - 1;
+            }
+        }
+
+        @Override
+        public int size() {
+            return n;
+        }
+
+        @Override
+        public boolean between(int first, int point, int last) {
+            return (positions[point] - positions[first] + n) % n <= (positions[last] - positions[first] + n) % n;
+        }
+
+        @Override
+        public int candidates(int point, int[] buffer) {
+            return OrOpt.candidates(neighbors, neighborCount, point, buffer);
+        }
+
+        @Override
+        public int next(int point) {
+            final int position = positions[point] + 1;
+            return tour[position == n ? 0 : position];
+        }
+
+        @Override
+        public int previous(int point) {
+            final int position = positions[point];
+            return tour[position == 0 ? n - 1 : position - 1];
+        }
+
+        @Override
+        public double distance(int i, int j) {
+            return Tours.distance(x, y, i, j);
+        }
+
+        private void push(int point) {
+            if (!queued[point]) {
+                queued[point] = true;
+                queue[(queueHead + queueSize) % n] = point;
+                queueSize++;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ * Every distance between n points, precomputed into a memory-mapped file.
+ *
+ * The entries are laid out just like {@link TriangularDistanceMatrix}'s, as little-endian floats after an 8-byte
+ * header:  a magic number and n.  The operating system pages the file in and out as needed, so the matrix can be
+ * much larger than the heap, and every process that opens the same file shares one copy of it in the page cache.
+ * Create the file once with {@link #create(Path, DistanceProvider)}, then {@link #open(Path)} it for each solve.
+ *
+ * A single mapping can't be larger than 2 GB, so the file is mapped in chunks.  The mappings stay valid after the
+ * file is closed, until the matrix is garbage collected.
+ */
+public final class MappedDistanceMatrix implements DistanceProvider {
+
+    private static final int MAGIC = 0x54535044;
+    private static final int HEADER_BYTES = 8;
+    // 2^28 floats, or 1 GB, per mapping
+    private static final int DEFAULT_CHUNK_SHIFT = 28;
+
+    private final int n;
+    private final int chunkShift;
+    private final long chunkMask;
+    private final FloatBuffer[] chunks;
+
+    private MappedDistanceMatrix(FileChannel channel, FileChannel.MapMode mode, int n, int chunkShift)
+            throws IOException {
+        this.n = n;
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        final long entries = TriangularDistanceMatrix.entryCount(n);
+        chunks = new FloatBuffer[(int) ((entries + chunkMask) >>> chunkShift)];
+        for (int i = 0; i < chunks.length; i++) {
+            final long first = (long) i << chunkShift;
+            final long count = Math.min(1L << chunkShift, entries - first);
+            chunks[i] = channel.map(mode, HEADER_BYTES + 4 * first, 4 * count)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+        }
+    }
+
+    /**
+     * Writes every distance from the source into a new file at path, replacing anything already there, and returns
+     * the matrix backed by it.  The source is read by several threads at once.
+     */
+    public static MappedDistanceMatrix create(Path path, DistanceProvider source) throws IOException {
+        return create(path, source, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /* pp */ static MappedDistanceMatrix create(Path path, DistanceProvider source, int chunkShift)
+            throws IOException {
+        final int n = source.size();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(n).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, HEADER_BYTES - header.remaining());
+            }
+            final MappedDistanceMatrix matrix = new MappedDistanceMatrix(channel, FileChannel.MapMode.READ_WRITE, n,
+                    chunkShift);
+            IntStream.range(1, n).parallel().forEach(i -> {
+                final long offset = TriangularDistanceMatrix.rowOffset(i);
+                for (int j = 0; j < i; j++) {
+                    matrix.put(offset + j, (float) source.distance(i, j));
+                }
+            });
+            channel.force(false);
+            return matrix;
+        }
+    }
+
+    /**
+     * Maps a file written by {@link #create(Path, DistanceProvider)}.  Throws {@link IllegalArgumentException} if it
+     * isn't one.
+     */
+    public static MappedDistanceMatrix open(Path path) throws IOException {
+        return open(path, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /* pp */ static MappedDistanceMatrix open(Path path, int chunkShift) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is full or the file runs out
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(path + " is not a distance matrix");
+            }
+            final int n = header.getInt();
+            final long expectedSize = HEADER_BYTES + 4 * TriangularDistanceMatrix.entryCount(n);
+            if (n < 0 || channel.size() != expectedSize) {
+                throw new IllegalArgumentException(path + " should hold " + n + " points in " + expectedSize
+                        + " bytes, but it has " + channel.size());
+            }
+            return new MappedDistanceMatrix(channel, FileChannel.MapMode.READ_ONLY, n, chunkShift);
+        }
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        if (i == j) {
+            return 0;
+        }
+        final long entry = i > j
+                ? TriangularDistanceMatrix.rowOffset(i) + j
+                : TriangularDistanceMatrix.rowOffset(j) + i;
+        return chunks[(int) (entry >>> chunkShift)].get((int) (entry & chunkMask));
+    }
+
+    private void put(long entry, float distance) {
+        chunks[(int) (entry >>> chunkShift)].put((int) (entry & chunkMask), distance);
+    }
+}
@@ -0,0 +1,297 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Builds a tour from a minimum spanning tree of the input (Skiena section 16.4).
+ *
+ * By default this is the "double tree" heuristic:  visit the points in the order a depth-first walk of the tree first
+ * reaches them.  The full walk uses every tree edge twice, and deleting any edge from the optimal tour leaves a
+ * spanning tree, so the walk is at most twice as long as the optimal tour.  Skipping points that have already been
+ * visited can only make it shorter, by the triangle inequality, so the tour is never more than twice optimal.
+ *
+ * The tree is the exact Euclidean minimum spanning tree, built with Boruvka's algorithm:  each round, every component
+ * of the forest built so far links to the nearest point outside of it, which at least halves the number of
+ * components.  That nearest point is almost always in the candidate neighbor list of one of the component's points,
+ * since the list is sorted and the first entry outside the component is the closest one.  Only points whose whole
+ * list lies inside their own component fall back to searching a {@link KdTree} for the nearest point outside of it,
+ * which skips any subtree that lies entirely inside the component.  With O(log n) rounds, the whole thing usually
+ * takes O(n log n) time.
+ *
+ * With matching enabled, the tour is built the way Christofides' algorithm builds one instead:  pair up the points
+ * with an odd number of tree edges, add an edge between each pair, and shortcut an Euler circuit of the result.  This
+ * pairs points greedily, shortest candidate edge first, rather than finding a minimum-weight perfect matching, which
+ * takes the O(n^3) blossom algorithm.  Greedy matching typically gives a noticeably shorter tour than the double tree,
+ * but it loses the guarantees:  Christofides' bound of 3/2 needs the minimum matching, and a greedy matching can be
+ * long enough to break the bound of 2 as well.
+ */
+public class MinimumSpanningTreeTSPSolver implements TSPSolver {
+
+    public static final int DEFAULT_NEIGHBOR_COUNT = 10;
+
+    private final boolean matching;
+    private final int neighborCount;
+
+    public MinimumSpanningTreeTSPSolver() {
+        this(false);
+    }
+
+    public MinimumSpanningTreeTSPSolver(boolean matching) {
+        this(matching, DEFAULT_NEIGHBOR_COUNT);
+    }
+
+    public MinimumSpanningTreeTSPSolver(boolean matching, int neighborCount) {
+        this.matching = matching;
+        this.neighborCount = neighborCount;
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y) {
+        final int n = x.length;
+        if (n <= 3) {
+            final int[] tour = new int[n];
+            for (int i = 0; i < n; i++) {
+                tour[i] = i;
+            }
+            return tour;
+        }
+        final int[] tree = minimumSpanningTree(x, y, Math.min(neighborCount, n - 1));
+        if (!matching) {
+            return preorder(n, tree);
+        }
+        return eulerCircuit(n, addMatching(x, y, tree, neighborCount));
+    }
+
+    /**
+     * Returns the edges of the Euclidean minimum spanning tree of the given points, with edge i running from element
+     * 2i to element 2i + 1, using candidate neighbor lists of k points each.
+     */
+    /* pp */ static int[] minimumSpanningTree(double[] x, double[] y, int k) {
+        final int n = x.length;
+        final int[] neighborLists = KdTree.neighborLists(x, y, k);
+        final UnionFind components = new UnionFind(n);
+        final int[] edges = new int[2 * Math.max(0, n - 1)];
+        int edgeCount = 0;
+        // Each point's component, and each component's shortest edge to another component, indexed by its root
+        final int[] labels = new int[n];
+        final int[] bestFrom = new int[n];
+        final int[] bestTo = new int[n];
+        final double[] bestLength = new double[n];
+        KdTree tree = null;
+        while (edgeCount < n - 1) {
+            for (int i = 0; i < n; i++) {
+                labels[i] = components.find(i);
+                bestTo[i] = -1;
+                bestLength[i] = Double.POSITIVE_INFINITY;
+            }
+            boolean labeled = false;
+            for (int i = 0; i < n; i++) {
+                final int label = labels[i];
+                int nearest = -1;
+                for (int j = 0; j < k; j++) {
+                    final int neighbor = neighborLists[i * k + j];
+                    if (neighbor == -1 || labels[neighbor] != label) {
+                        nearest = neighbor;
+                        break;
+                    }
+                }
+                if (nearest == -1) {
+                    // Everything outside the component is farther away than every candidate, so search for it
+                    if (tree == null) {
+                        tree = new KdTree(x, y);
+                    }
+                    if (!labeled) {
+                        tree.setLabels(labels);
+                        labeled = true;
+                    }
+                    nearest = tree.nearestOutside(x[i], y[i], label, bestLength[label]);
+                    if (nearest == -1) {
+                        continue;
+                    }
+                }
+                final double length = Tours.distance(x, y, i, nearest);
+                if (length < bestLength[label]) {
+                    bestFrom[label] = i;
+                    bestTo[label] = nearest;
+                    bestLength[label] = length;
+                }
+            }
+            for (int root = 0; root < n; root++) {
+                // Two components can pick the same edge, or equally long edges between them, so check again
+                if (bestTo[root] != -1 && components.union(bestFrom[root], bestTo[root])) {
+                    edges[2 * edgeCount] = bestFrom[root];
+                    edges[2 * edgeCount + 1] = bestTo[root];
+                    edgeCount++;
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * Returns the given edges plus one edge between each pair of points in a greedy matching of the points with an
+     * odd number of edges.
+     */
+    private static int[] addMatching(double[] x, double[] y, int[] edges, int neighborCount) {
+        final int n = x.length;
+        final int[] degree = new int[n];
+        for (int endpoint : edges) {
+            degree[endpoint]++;
+        }
+        int oddCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (degree[i] % 2 == 1) {
+                oddCount++;
+            }
+        }
+        // Copy the odd points' coordinates out, so that the candidate lists only include each other
+        final int[] odd = new int[oddCount];
+        final double[] oddX = new double[oddCount];
+        final double[] oddY = new double[oddCount];
+        oddCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (degree[i] % 2 == 1) {
+                odd[oddCount] = i;
+                oddX[oddCount] = x[i];
+                oddY[oddCount] = y[i];
+                oddCount++;
+            }
+        }
+
+        final int[] mates = new int[oddCount];
+        for (int i = 0; i < oddCount; i++) {
+            mates[i] = -1;
+        }
+        final int k = Math.min(neighborCount, oddCount - 1);
+        final EdgeHeap candidates = new EdgeHeap(oddX, oddY, KdTree.neighborLists(oddX, oddY, k), k);
+        while (!candidates.isEmpty()) {
+            final int edge = candidates.pop();
+            final int first = candidates.first(edge);
+            final int second = candidates.second(edge);
+            if (mates[first] == -1 && mates[second] == -1) {
+                mates[first] = second;
+                mates[second] = first;
+            }
+        }
+        // Whatever the candidates couldn't pair up gets paired with its nearest unpaired point
+        final KdTree unmatched = new KdTree(oddX, oddY);
+        for (int i = 0; i < oddCount; i++) {
+            if (mates[i] != -1) {
+                unmatched.remove(i);
+            }
+        }
+        for (int i = 0; i < oddCount; i++) {
+            if (mates[i] == -1) {
+                unmatched.remove(i);
+                final int mate = unmatched.nearest(oddX[i], oddY[i]);
+                unmatched.remove(mate);
+                mates[i] = mate;
+                mates[mate] = i;
+            }
+        }
+
+        final int[] combined = new int[edges.length + oddCount];
+        System.arraycopy(edges, 0, combined, 0, edges.length);
+        int written = edges.length;
+        for (int i = 0; i < oddCount; i++) {
+            if (i < mates[i]) {
+                combined[written++] = odd[i];
+                combined[written++] = odd[mates[i]];
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * Returns the points in the order a depth-first walk of the given tree from point 0 first reaches them.
+     */
+    private static int[] preorder(int n, int[] edges) {
+        final int[] offsets = new int[n + 1];
+        final int[] adjacent = adjacency(n, edges, offsets, null);
+        final int[] tour = new int[n];
+        final boolean[] visited = new boolean[n];
+        final int[] stack = new int[n];
+        int stackSize = 0;
+        int count = 0;
+        stack[stackSize++] = 0;
+        visited[0] = true;
+        while (stackSize > 0) {
+            final int point = stack[--stackSize];
+            tour[count++] = point;
+            for (int i = offsets[point]; i < offsets[point + 1]; i++) {
+                if (!visited[adjacent[i]]) {
+                    visited[adjacent[i]] = true;
+                    stack[stackSize++] = adjacent[i];
+                }
+            }
+        }
+        return tour;
+    }
+
+    /**
+     * Finds an Euler circuit of the given connected multigraph, in which every point has an even number of edges,
+     * with Hierholzer's algorithm, and returns the points in the order the circuit first reaches them.
+     */
+    private static int[] eulerCircuit(int n, int[] edges) {
+        final int edgeCount = edges.length / 2;
+        final int[] offsets = new int[n + 1];
+        final int[] edgeIds = new int[edges.length];
+        final int[] adjacent = adjacency(n, edges, offsets, edgeIds);
+        final boolean[] used = new boolean[edgeCount];
+        // Next adjacency entry to try for each point
+        final int[] cursors = new int[n];
+        System.arraycopy(offsets, 0, cursors, 0, n);
+
+        final int[] tour = new int[n];
+        final boolean[] visited = new boolean[n];
+        final int[] stack = new int[edgeCount + 1];
+        int stackSize = 0;
+        int count = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0) {
+            final int point = stack[stackSize - 1];
+            while (cursors[point] < offsets[point + 1] && used[edgeIds[cursors[point]]]) {
+                cursors[point]++;
+            }
+            if (cursors[point] < offsets[point + 1]) {
+                used[edgeIds[cursors[point]]] = true;
+                stack[stackSize++] = adjacent[cursors[point]];
+            } else {
+                // The circuit comes off the stack in reverse, which is just as good a tour
+                stackSize--;
+                if (!visited[point]) {
+                    visited[point] = true;
+                    tour[count++] = point;
+                }
+            }
+        }
+        return tour;
+    }
+
+    /**
+     * Builds adjacency lists for an undirected multigraph:  the points adjacent to point i are
+     * adjacent[offsets[i], offsets[i + 1]).  If edgeIds isn't null, it's filled in with the id of the edge behind
+     * each entry.
+     */
+    private static int[] adjacency(int n, int[] edges, int[] offsets, int[] edgeIds) {
+        for (int endpoint : edges) {
+            offsets[endpoint + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        final int[] adjacent = new int[edges.length];
+        final int[] filled = new int[n];
+        for (int edge = 0; edge < edges.length / 2; edge++) {
+            final int first = edges[2 * edge];
+            final int second = edges[2 * edge + 1];
+            final int firstSlot = offsets[first] + filled[first]++;
+            final int secondSlot = offsets[second] + filled[second]++;
+            adjacent[firstSlot] = second;
+            adjacent[secondSlot] = first;
+            if (edgeIds != null) {
+                edgeIds[firstSlot] = edge;
+                edgeIds[secondSlot] = edge;
+            }
+        }
+        return adjacent;
+    }
+}
@@ -0,0 +1,355 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import com.esri.core.geometry.Polyline;
+
+import java.util.Arrays;
+
+/**
+ * A tour that stays up to date as points are added to and removed from it, without solving it again from scratch.
+ *
+ *  -   New points go wherever they add the least length to the tour (cheapest insertion).  Only the edges next to the
+ *      new point's nearest neighbors are considered, since the cheapest place is almost always next to one of them.
+ *  -   Removed points are spliced out, joining their two neighbors directly.
+ *  -   After either change, an optional bounded number of {@link OrOpt} moves repair the tour around the points
+ *      whose edges changed.
+ *
+ * Nearest neighbors come from a {@link KdForest}, which supports insertion and deletion.  The tour is a doubly linked
+ * list, so splicing a point or a short segment in or out takes constant time.  Each update then costs O(k log^2 n)
+ * amortized, plus about the same again for each repair move, instead of a full solve.
+ *
+ * Each point has an id, which stays the same for as long as the point is in the tour.  Ids of removed points are not
+ * reused.
+ */
+public class MutableTour {
+
+    public static final int DEFAULT_NEIGHBOR_COUNT = 8;
+    public static final int DEFAULT_MAX_MOVES = 16;
+
+    private final int maxMoves;
+    private final KdForest index;
+    private final int[] neighbors = new int[DEFAULT_NEIGHBOR_COUNT];
+    // Or-opt's candidates include the point itself, so it gets one more
+    private final OrOpt orOpt = new OrOpt(new Links(), DEFAULT_NEIGHBOR_COUNT + 1);
+    private double[] x;
+    private double[] y;
+    // Tour links by id, or -1 for ids that aren't in the tour
+    private int[] next;
+    private int[] previous;
+    private int idCount;
+    private int size;
+    private int head = -1;
+    private double length;
+    // Points whose edges have changed during the current update
+    private int[] pending = new int[16];
+    private int pendingSize;
+
+    /**
+     * Creates an empty tour.
+     */
+    public MutableTour() {
+        this(DEFAULT_MAX_MOVES);
+    }
+
+    /**
+     * Creates an empty tour that makes at most maxMoves repair moves per update.
+     */
+    public MutableTour(int maxMoves) {
+        this(new double[0], new double[0], new int[0], maxMoves);
+    }
+
+    /**
+     * Creates a tour through the given points in the given order, usually one found by a {@link TSPSolver}.  Point i
+     * gets id i.  The arrays are not modified or retained.
+     */
+    public MutableTour(double[] x, double[] y, int[] tour, int maxMoves) {
+        if (tour.length != x.length) {
+            throw new IllegalArgumentException("Tour visits " + tour.length + " points but there are " + x.length);
+        }
+        this.maxMoves = maxMoves;
+        idCount = x.length;
+        size = x.length;
+        final int capacity = Math.max(16, idCount);
+        this.x = Arrays.copyOf(x, capacity);
+        this.y = Arrays.copyOf(y, capacity);
+        next = new int[capacity];
+        previous = new int[capacity];
+        Arrays.fill(next, -1);
+        Arrays.fill(previous, -1);
+        for (int i = 0; i < size; i++) {
+            final int current = tour[i];
+            final int following = tour[(i + 1) % size];
+            if (next[current] != -1) {
+                throw new IllegalArgumentException("Tour visits point " + current + " more than once");
+            }
+            next[current] = following;
+            previous[following] = current;
+            length += distance(current, following);
+        }
+        head = size > 0 ? tour[0] : -1;
+        index = new KdForest(x, y);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double length() {
+        return length;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < idCount && next[id] != -1;
+    }
+
+    public int next(int id) {
+        checkContains(id);
+        return next[id];
+    }
+
+    public int previous(int id) {
+        checkContains(id);
+        return previous[id];
+    }
+
+    /**
+     * Adds a point to the tour where it's cheapest to, then repairs the tour around it.  Returns the new point's id.
+     */
+    public int insert(double pointX, double pointY) {
+        final int id = idCount++;
+        ensureCapacity(idCount);
+        x[id] = pointX;
+        y[id] = pointY;
+        if (size == 0) {
+            next[id] = id;
+            previous[id] = id;
+            head = id;
+        } else {
+            // Try both edges next to each nearest neighbor
+            int bestAfter = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            final int count = index.nearest(pointX, pointY, DEFAULT_NEIGHBOR_COUNT, neighbors);
+            for (int i = 0; i < count; i++) {
+                for (int side = 0; side < 2; side++) {
+                    final int u = side == 0 ? neighbors[i] : previous[neighbors[i]];
+                    final int v = next[u];
+                    final double cost = distance(u, id) + distance(id, v) - distance(u, v);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAfter = u;
+                    }
+                }
+            }
+            final int following = next[bestAfter];
+            next[bestAfter] = id;
+            previous[id] = bestAfter;
+            next[id] = following;
+            previous[following] = id;
+            length += bestCost;
+        }
+        index.add(id, pointX, pointY);
+        size++;
+        repair(id);
+        return id;
+    }
+
+    /**
+     * Removes a point from the tour, joining its neighbors to each other, then repairs the tour around them.
+     */
+    public void remove(int id) {
+        checkContains(id);
+        final int before = previous[id];
+        final int after = next[id];
+        if (size == 1) {
+            head = -1;
+        } else {
+            next[before] = after;
+            previous[after] = before;
+            length += distance(before, after) - distance(before, id) - distance(id, after);
+            if (head == id) {
+                head = after;
+            }
+        }
+        next[id] = -1;
+        previous[id] = -1;
+        index.remove(id);
+        size--;
+        if (size > 0) {
+            repair(before, after);
+        }
+    }
+
+    /**
+     * Returns the ids of the points in the tour, in tour order.
+     */
+    public int[] toArray() {
+        final int[] tour = new int[size];
+        int current = head;
+        for (int i = 0; i < size; i++) {
+            tour[i] = current;
+            current = next[current];
+        }
+        return tour;
+    }
+
+    public Polyline toPolyline() {
+        return Tours.toPolyline(x, y, toArray());
+    }
+
+    /**
+     * Makes up to maxMoves Or-opt moves, starting from the given points and moving on to whichever points each move
+     * touches.
+     */
+    private void repair(int... points) {
+        pendingSize = 0;
+        for (int point : points) {
+            push(point);
+        }
+        int moves = 0;
+        while (pendingSize > 0 && moves < maxMoves) {
+            final int point = pending[--pendingSize];
+            if (!contains(point)) {
+                continue;
+            }
+            final double gain = orOpt.improve(point);
+            if (gain > 0) {
+                length -= gain;
+                for (int touched : orOpt.touched()) {
+                    push(touched);
+                }
+                moves++;
+            }
+        }
+    }
+
+    /**
+     * The tour's links, as {@link OrOpt} sees them.
+     */
+    private class Links implements OrOpt.Tour {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int next(int point) {
+            return next[point];
+        }
+
+        @Override
+        public int previous(int point) {
+            return previous[point];
+        }
+
+        @Override
+        public boolean between(int first, int point, int last) {
+            // Or-opt segments are at most a few points long, so walking them is cheap
+            for (int current = first; ; current = next[current]) {
+                if (current == point) {
+                    return true;
+                }
+                if (current == last) {
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public void flip(int a, int b, int c, int d) {
+            if (next[a] == b) {
+                reverse(b, c);
+            } else {
+                reverse(a, d);
+            }
+        }
+
+        /**
+         * Splices the segment out and back in, which takes time proportional to the segment rather than to the paths
+         * that three flips would reverse.
+         */
+        @Override
+        public void moveSegment(int p, int first, int last, int q, int u, int v, boolean reversed) {
+            next[p] = q;
+            previous[q] = p;
+            if (reversed) {
+                reverseLinks(first, last);
+                final int temp = first;
+                first = last;
+                last = temp;
+            }
+            next[u] = first;
+            previous[first] = u;
+            next[last] = v;
+            previous[v] = last;
+        }
+
+        @Override
+        public int candidates(int point, int[] buffer) {
+            return index.nearest(x[point], y[point], buffer.length, buffer);
+        }
+
+        @Override
+        public double distance(int i, int j) {
+            return MutableTour.this.distance(i, j);
+        }
+
+        /**
+         * Reverses the path that runs forward from one point to another, reconnecting it to the points around it.
+         */
+        private void reverse(int from, int to) {
+            final int before = previous[from];
+            final int after = next[to];
+            reverseLinks(from, to);
+            next[before] = to;
+            previous[to] = before;
+            next[from] = after;
+            previous[after] = from;
+        }
+
+        /**
+         * Swaps the next and previous links of every point on the path that runs forward from one point to another.
+         */
+        private void reverseLinks(int from, int to) {
+            int current = from;
+            while (true) {
+                final int following = next[current];
+                next[current] = previous[current];
+                previous[current] = following;
+                if (current == to) {
+                    return;
+                }
+                current = following;
+            }
+        }
+    }
+
+    private void push(int point) {
+        if (pendingSize == pending.length) {
+            pending = Arrays.copyOf(pending, 2 * pending.length);
+        }
+        pending[pendingSize++] = point;
+    }
+
+    private double distance(int i, int j) {
+        return Tours.distance(x, y, i, j);
+    }
+
+    private void checkContains(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Point " + id + " is not in the tour");
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (next.length < capacity) {
+            final int oldLength = next.length;
+            final int newLength = Math.max(capacity, 2 * oldLength);
+            x = Arrays.copyOf(x, newLength);
+            y = Arrays.copyOf(y, newLength);
+            next = Arrays.copyOf(next, newLength);
+            previous = Arrays.copyOf(previous, newLength);
+            Arrays.fill(next, oldLength, newLength, -1);
+            Arrays.fill(previous, oldLength, newLength, -1);
+        }
+    }
+}
@@ -1,54 +1,47 @@
 package com.jfriedly.interviewing.practice.tadm2e.tsp;
 
-import com.esri.core.geometry.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * Finds a sub-optimal tour through the input set by repeatedly selecting the nearest neighbor.
  *
  * The tour returned is *not* guaranteed to be the shortest one.  Pathological cases exist.  See the test case.
+ *
+ * Each step scans every unvisited point, so this takes O(n^2).  See {@link KdTreeNearestNeighborTSPSolver} for an
+ * O(n log n) version that returns the same tours.
  */
-public class NearestNeighborTSPSolver implements TSPSolver {
-
-    private static final Logger logger = LoggerFactory.getLogger(NearestNeighborTSPSolver.class);
-    // I don't know what this should be, so I'm just using the first one
-    private static final SpatialReference SPATIAL_REFERENCE = SpatialReference.create(1);
+public class NearestNeighborTSPSolver implements DistanceTSPSolver {
 
     @Override
-    public Polyline findTour(MultiPoint input) {
-        final Polyline tour = new Polyline();
-        if (input.getPointCount() == 0) {
+    public int[] findTour(DistanceProvider distances) {
+        final int n = distances.size();
+        final int[] tour = new int[n];
+        if (n == 0) {
             return tour;
         }
 
-        final MultiPoint visited = new MultiPoint();
-        final Point start = input.getPoint(0);
-        tour.startPath(start);
-        Point current = start;
-        for (int i = 1; i < input.getPointCount(); i++) {
+        final boolean[] visited = new boolean[n];
+        int current = 0;
+        visited[current] = true;
+        for (int i = 1; i < n; i++) {
             // Find the nearest neighbor to our current point
-            Point nearestNeighbor = null;
+            int nearestNeighbor = -1;
             double nearestNeighborDistance = Double.MAX_VALUE;
-            for (int j = 1; j < input.getPointCount(); j++) {
-                final Point neighbor = input.getPoint(j);
-                if (OperatorContains.local().execute(visited, neighbor, SPATIAL_REFERENCE, null)) {
+            for (int j = 1; j < n; j++) {
+                if (visited[j]) {
                     continue;
                 }
-                final double distance = OperatorDistance.local().execute(current, neighbor, null);
+                final double distance = distances.distance(current, j);
                 if (distance < nearestNeighborDistance) {
                     nearestNeighborDistance = distance;
-                    nearestNeighbor = neighbor;
+                    nearestNeighbor = j;
                 }
             }
 
-            // Remove the nearest neighbor and add it to the tour
-            visited.add(nearestNeighbor);
-            tour.lineTo(nearestNeighbor);
+            // Mark the nearest neighbor visited and add it to the tour
+            visited[nearestNeighbor] = true;
+            tour[i] = nearestNeighbor;
             current = nearestNeighbor;
         }
 
-        tour.closePathWithLine();
         return tour;
     }
 }
@@ -1,70 +1,110 @@
 package com.jfriedly.interviewing.practice.tadm2e.tsp;
 
-import com.esri.core.geometry.*;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
- * Finds the shortest tour through the input set by testing all n! possible tours.  Executes in O((n + 1)!)
+ * Finds the shortest tour through the input set by testing all possible tours.  Executes in O(n!)
+ *
+ * Every tour is a cycle, so it doesn't matter which point it starts from; the search always starts from point 0 and
+ * tries all (n - 1)! orderings of the rest.  The length of the partial tour is kept up to date as points are added
+ * and removed, and any partial tour that can't beat the shortest complete tour found so far is abandoned.
+ *
+ * If the deadline passes first, this returns the shortest tour it has found, which starts out as the points in index
+ * order.  Each shorter complete tour is reported to the listener as soon as it's found.
  */
-public class OptimalTSPSolver implements TSPSolver {
+public class OptimalTSPSolver implements AnytimeTSPSolver, DistanceTSPSolver {
 
-    private static final Logger logger = LoggerFactory.getLogger(OptimalTSPSolver.class);
+    // Search nodes visited between checks of the deadline
+    private static final int CHECK_INTERVAL = 1 << 12;
 
     @Override
-    public Polyline findTour(MultiPoint input) {
-        Polyline shortestTour = new Polyline();
-        double shortestTourDistance = Double.MAX_VALUE;
-
-        for (int i = 0; i < input.getPointCount(); i++) {
-            final Point start = input.getPoint(i);
-            final MultiPoint remaining = (MultiPoint) input.copy();
-            remaining.removePoint(i);
+    public int[] findTour(double[] x, double[] y) {
+        return findTour(new EuclideanDistances(x, y));
+    }
 
-            final Polyline shortestSubTour = searchAlltours(remaining, shortestTourDistance, new Polyline(), start);
-            final double shortestSubTourDistance = shortestSubTour.calculateLength2D();
-            if (shortestSubTourDistance < shortestTourDistance) {
-                shortestTourDistance = shortestSubTourDistance;
-                shortestTour = (Polyline) shortestSubTour.copy();
-            }
-        }
+    @Override
+    public int[] findTour(DistanceProvider distances) {
+        return findTour(distances, Deadline.none(), TourListener.NONE);
+    }
 
-        return shortestTour;
+    @Override
+    public int[] findTour(double[] x, double[] y, Deadline deadline, TourListener listener) {
+        return findTour(new EuclideanDistances(x, y), deadline, listener);
     }
 
-    private Polyline searchAlltours(MultiPoint remaining, double shortestTourDistance, Polyline currentTour, Point start) {
-        if (remaining.getPointCount() == 0) {
-            currentTour.closePathWithLine();
-            return currentTour;
-        }
-        if (currentTour.calculateLength2D() > shortestTourDistance) {
-            return currentTour;
+    public int[] findTour(DistanceProvider distances, Deadline deadline, TourListener listener) {
+        final int n = distances.size();
+        final Search search = new Search(distances, new Progress(deadline, listener));
+        if (n > 0) {
+            search.visited[0] = true;
+            search.searchAllTours(1, 0);
         }
+        return search.progress.finish(search.shortestTour, search.shortestTourDistance);
+    }
 
-        Polyline shortestTour = new Polyline();
-
-        for (int i = 0; i < remaining.getPointCount(); i++) {
-            final Point currentPoint = remaining.getPoint(i);
+    /**
+     * State for one search, kept in primitive arrays that are updated in place as the recursion goes up and down.
+     */
+    private static class Search {
+        private final DistanceProvider distances;
+        private final int[] currentTour;
+        private final boolean[] visited;
+        private final int[] shortestTour;
+        private double shortestTourDistance;
+        private final Progress progress;
+        // Checked on the very first call too, in case the deadline has already passed
+        private int untilCheck = 1;
+        private boolean stopped;
 
-            final Polyline currentSubTour = (Polyline) currentTour.copy();
-            if (currentSubTour.isEmpty()) {
-                currentSubTour.startPath(start);
+        private Search(DistanceProvider distances, Progress progress) {
+            final int n = distances.size();
+            this.distances = distances;
+            this.progress = progress;
+            currentTour = new int[n];
+            visited = new boolean[n];
+            // The first tour the search reaches is the points in index order, so start from it in case time runs out
+            shortestTour = new int[n];
+            for (int i = 0; i < n; i++) {
+                shortestTour[i] = i;
             }
-            currentSubTour.lineTo(currentPoint);
-
-            final MultiPoint currentRemaining = (MultiPoint) remaining.copy();
-            currentRemaining.removePoint(i);
+            shortestTourDistance = distances.length(shortestTour);
+            progress.publish(shortestTour, shortestTourDistance);
+        }
 
-            final Polyline shortestSubTour = searchAlltours(currentRemaining, shortestTourDistance, currentSubTour, start);
-            final double shortestSubTourDistance = shortestSubTour.calculateLength2D();
-            if (shortestTour.isEmpty()) {
-                shortestTour = (Polyline) shortestSubTour.copy();
+        /**
+         * Extends the current tour, whose first {@code depth} points have been chosen and whose length so far (not
+         * counting the edge back to the start) is currentDistance.
+         */
+        private void searchAllTours(int depth, double currentDistance) {
+            if (--untilCheck == 0) {
+                untilCheck = CHECK_INTERVAL;
+                stopped = progress.isExpired();
             }
-            if (shortestSubTourDistance < shortestTourDistance) {
-                shortestTourDistance = shortestSubTourDistance;
-                shortestTour = (Polyline) shortestSubTour.copy();
+            if (stopped) {
+                return;
+            }
+            final int last = currentTour[depth - 1];
+            if (depth == currentTour.length) {
+                final double tourDistance = currentDistance + distances.distance(last, currentTour[0]);
+                if (tourDistance < shortestTourDistance) {
+                    shortestTourDistance = tourDistance;
+                    System.arraycopy(currentTour, 0, shortestTour, 0, currentTour.length);
+                    progress.publish(shortestTour, shortestTourDistance);
+                }
+                return;
+            }
+            // By the triangle inequality, getting back to the start can't be any shorter than going there directly
+            if (currentDistance + distances.distance(last, currentTour[0]) >= shortestTourDistance) {
+                return;
+            }
+
+            for (int i = 1; i < currentTour.length; i++) {
+                if (visited[i]) {
+                    continue;
+                }
+                visited[i] = true;
+                currentTour[depth] = i;
+                searchAllTours(depth + 1, currentDistance + distances.distance(last, i));
+                visited[i] = false;
             }
         }
-        return shortestTour;
     }
 }
@@ -0,0 +1,170 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Or-opt moves (Or 1976):  cut out a segment of up to {@link #MAX_SEGMENT_LENGTH} consecutive points and reinsert it,
+ * in either direction, between two adjacent points somewhere else in the tour.
+ *
+ * Only insertions next to a candidate neighbor of either end of the segment are tried, and only when the new edge is
+ * shorter than what removing the segment saves.  The search works through {@link Tour}, so the same moves run on
+ * {@link LocalSearchTSPSolver}'s array, {@link LinKernighanTSPSolver}'s {@link TwoLevelTour} and
+ * {@link MutableTour}'s linked list.
+ */
+class OrOpt {
+
+    static final int MAX_SEGMENT_LENGTH = 3;
+    // Moves must shorten the tour by at least this much, so that rounding error can't make the search cycle
+    private static final double EPSILON = 1e-10;
+
+    /**
+     * A tour that Or-opt moves can be made on, along with the distances and candidate neighbors of its points.
+     */
+    interface Tour {
+
+        int size();
+
+        int next(int point);
+
+        int previous(int point);
+
+        /**
+         * Returns true if point lies on the path that runs forward from first to last, inclusive.
+         */
+        boolean between(int first, int point, int last);
+
+        /**
+         * 2-opt move:  removes edges (a, b) and (c, d) and adds (a, c) and (b, d).  Either b follows a and d follows
+         * c, or b precedes a and d precedes c.
+         */
+        void flip(int a, int b, int c, int d);
+
+        /**
+         * Moves the segment first..last, which currently sits between p and q, so that it sits between u and v
+         * instead.  If reversed is set, u ends up next to last instead of first.
+         */
+        default void moveSegment(int p, int first, int last, int q, int u, int v, boolean reversed) {
+            if (v == p) {
+                // Seen from the other direction, the segment is moving to just past q instead of just before p
+                moveSegment(q, last, first, p, v, u, reversed);
+                return;
+            }
+            // Tour order is p [first .. last] [q .. u] v.  Turn it into p [q .. u] [last .. first] v, then
+            // optionally flip the segment back around.
+            flip(p, first, u, v);
+            flip(p, u, q, last);
+            if (!reversed) {
+                flip(u, last, first, v);
+            }
+        }
+
+        /**
+         * Writes the point's candidate neighbors into the buffer, nearest first, and returns how many there are.  The
+         * point itself may be one of them.
+         */
+        int candidates(int point, int[] buffer);
+
+        double distance(int i, int j);
+    }
+
+    private final Tour tour;
+    private final int[] candidates;
+    // The six points whose edges the last move changed
+    private final int[] touched = new int[6];
+
+    OrOpt(Tour tour, int maxCandidates) {
+        this.tour = tour;
+        candidates = new int[maxCandidates];
+    }
+
+    /**
+     * Makes the first move found that shortens the tour, trying segments that start or end at a.  Returns how much
+     * shorter the tour got, or 0 if no move was made.
+     */
+    double improve(int a) {
+        for (int length = 1; length <= MAX_SEGMENT_LENGTH && length <= tour.size() - 3; length++) {
+            for (int direction = 0; direction < 2; direction++) {
+                if (length == 1 && direction == 1) {
+                    break;
+                }
+                // The segment runs forward from first to last, with a at one end
+                int first = a;
+                int last = a;
+                for (int i = 1; i < length; i++) {
+                    if (direction == 0) {
+                        last = tour.next(last);
+                    } else {
+                        first = tour.previous(first);
+                    }
+                }
+                final double gain = improve(first, last);
+                if (gain > 0) {
+                    return gain;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the points whose edges the last move changed, some possibly more than once.
+     */
+    int[] touched() {
+        return touched;
+    }
+
+    /**
+     * Implements {@link Tour#candidates} for neighbor lists in the layout of {@link KdTree#neighborLists}.
+     */
+    static int candidates(int[] neighbors, int neighborCount, int point, int[] buffer) {
+        int count = 0;
+        while (count < neighborCount && neighbors[point * neighborCount + count] != -1) {
+            buffer[count] = neighbors[point * neighborCount + count];
+            count++;
+        }
+        return count;
+    }
+
+    private double improve(int first, int last) {
+        final int p = tour.previous(first);
+        final int q = tour.next(last);
+        final double removalGain = tour.distance(p, first) + tour.distance(last, q) - tour.distance(p, q);
+        if (removalGain <= EPSILON) {
+            return 0;
+        }
+        for (int end = 0; end < 2; end++) {
+            final int segmentEnd = end == 0 ? first : last;
+            final int count = tour.candidates(segmentEnd, candidates);
+            for (int i = 0; i < count; i++) {
+                final int c = candidates[i];
+                if (tour.distance(segmentEnd, c) >= removalGain) {
+                    break;
+                }
+                if (tour.between(first, c, last)) {
+                    continue;
+                }
+                for (int side = 0; side < 2; side++) {
+                    // Insert between u and v, where v follows u
+                    final int u = side == 0 ? c : tour.previous(c);
+                    final int v = side == 0 ? tour.next(c) : c;
+                    if (tour.between(first, u, last) || tour.between(first, v, last)) {
+                        continue;
+                    }
+                    final double uv = tour.distance(u, v);
+                    final double forwardCost = tour.distance(u, first) + tour.distance(last, v) - uv;
+                    final double reversedCost = tour.distance(u, last) + tour.distance(first, v) - uv;
+                    final double gain = removalGain - Math.min(forwardCost, reversedCost);
+                    if (gain > EPSILON) {
+                        tour.moveSegment(p, first, last, q, u, v, reversedCost < forwardCost);
+                        touched[0] = p;
+                        touched[1] = q;
+                        touched[2] = first;
+                        touched[3] = last;
+                        touched[4] = u;
+                        touched[5] = v;
+                        return gain;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,307 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Finds the shortest tour through the input set with a branch-and-bound search spread across a {@link ForkJoinPool}.
+ *
+ * This explores the same tree as {@link OptimalTSPSolver}:  fix point 0 as the start and extend the tour one point at
+ * a time.  Three things keep most of that tree from ever being visited:
+ *
+ *  1)  The search starts with a nearest neighbor tour as its incumbent, so there's a reasonable bound to prune
+ *      against before the first complete tour is found.
+ *  2)  A partial tour is abandoned unless its length plus a lower bound on the rest can beat the incumbent.  Whatever
+ *      remains of the tour is a path from the last point through every unvisited point and back to point 0.  That
+ *      path spans those points, so it can't be any shorter than their minimum spanning tree.
+ *  3)  The top few levels of the tree are split into ForkJoin tasks that all prune against one shared bound.  The
+ *      length of the best tour is published through a volatile field, so as soon as any worker finds a shorter tour,
+ *      every other worker starts pruning against it.  Each worker thread reuses one set of scratch arrays for every
+ *      task it runs.
+ *
+ * Children are explored nearest point first, which tends to find short tours early.  The worst case is still
+ * exponential, and tours are limited to {@link #MAX_POINTS} points so that the visited set fits in a long.
+ *
+ * If the deadline passes first, every worker stops and this returns the incumbent.  Each new incumbent is reported to
+ * the listener, from whichever worker found it.
+ *
+ * The search only needs distances, which it copies into a dense matrix up front, so it can also solve from any
+ * {@link DistanceProvider}.
+ */
+public class ParallelBranchAndBoundTSPSolver implements AnytimeTSPSolver, DistanceTSPSolver {
+
+    public static final int MAX_POINTS = 64;
+    // Subtrees with this many points or fewer left to place aren't worth splitting into more tasks
+    private static final int SEQUENTIAL_THRESHOLD = 8;
+    private static final int MAX_SPLIT_DEPTH = 3;
+    // Search nodes each worker visits between checks of the deadline
+    private static final int CHECK_INTERVAL = 1 << 10;
+
+    private final ForkJoinPool pool;
+
+    public ParallelBranchAndBoundTSPSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelBranchAndBoundTSPSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y) {
+        return findTour(new EuclideanDistances(x, y));
+    }
+
+    @Override
+    public int[] findTour(DistanceProvider distances) {
+        return findTour(distances, Deadline.none(), TourListener.NONE);
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y, Deadline deadline, TourListener listener) {
+        return findTour(new EuclideanDistances(x, y), deadline, listener);
+    }
+
+    public int[] findTour(DistanceProvider source, Deadline deadline, TourListener listener) {
+        final int n = source.size();
+        if (n > MAX_POINTS) {
+            throw new IllegalArgumentException("Branch and bound can't solve " + n + " points; the limit is "
+                    + MAX_POINTS);
+        }
+        final Progress progress = new Progress(deadline, listener);
+        final int[] incumbent = new NearestNeighborTSPSolver().findTour(source);
+        if (n <= 3) {
+            return progress.finish(incumbent, source.length(incumbent));
+        }
+
+        final double[] distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                distances[i * n + j] = source.distance(i, j);
+            }
+        }
+        final Bound bound = new Bound(incumbent, length(distances, n, incumbent), progress);
+        progress.publish(incumbent, bound.length());
+        final ThreadLocal<Search> searches = ThreadLocal.withInitial(() -> new Search(distances, n, bound));
+        final int[] path = new int[n];
+        pool.invoke(new SearchTask(searches, path, 1, 1L, 0));
+        return progress.finish(bound.tour, bound.length());
+    }
+
+    private static double length(double[] distances, int n, int[] tour) {
+        double length = 0;
+        for (int i = 0; i < n; i++) {
+            length += distances[tour[i] * n + tour[(i + 1) % n]];
+        }
+        return length;
+    }
+
+    /**
+     * The shortest tour found so far by any worker, and whether the deadline has passed.  Both are readable without
+     * locking; updates are rare, so they just synchronize.
+     */
+    private static class Bound {
+        private final int[] tour;
+        private final Progress progress;
+        private volatile double length;
+        private volatile boolean stopped;
+
+        private Bound(int[] tour, double length, Progress progress) {
+            this.tour = tour;
+            this.length = length;
+            this.progress = progress;
+        }
+
+        private double length() {
+            return length;
+        }
+
+        private synchronized void offer(int[] path, double length) {
+            if (length < this.length) {
+                System.arraycopy(path, 0, tour, 0, tour.length);
+                this.length = length;
+                progress.publish(tour, length);
+            }
+        }
+
+        /**
+         * Returns true once the deadline has passed, telling every worker to stop.
+         */
+        private boolean isStopped() {
+            if (!stopped && progress.isExpired()) {
+                stopped = true;
+            }
+            return stopped;
+        }
+    }
+
+    /**
+     * Searches every tour that begins with path[0, depth).  Near the root, each child becomes its own task; further
+     * down, the whole subtree is searched depth-first on the current thread.
+     *
+     * Every task uses its thread's {@link Search} for scratch space, and is done with it before it forks, so the tasks
+     * that the thread runs while this one waits for its children can use it too.
+     */
+    private static class SearchTask extends RecursiveAction {
+        private final ThreadLocal<Search> searches;
+        private final int[] path;
+        private final int depth;
+        private final long visited;
+        private final double length;
+
+        private SearchTask(ThreadLocal<Search> searches, int[] path, int depth, long visited, double length) {
+            this.searches = searches;
+            this.path = path;
+            this.depth = depth;
+            this.visited = visited;
+            this.length = length;
+        }
+
+        @Override
+        protected void compute() {
+            final Search search = searches.get();
+            if (search.bound.isStopped()) {
+                return;
+            }
+            final int n = search.n;
+            if (depth > MAX_SPLIT_DEPTH || n - depth <= SEQUENTIAL_THRESHOLD) {
+                System.arraycopy(path, 0, search.path, 0, depth);
+                search.search(depth, visited, length);
+                return;
+            }
+            if (length + search.lowerBound(path[depth - 1], visited) >= search.bound.length()) {
+                return;
+            }
+
+            final int last = path[depth - 1];
+            final int count = search.orderChildren(last, visited, depth);
+            final List<SearchTask> children = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int next = search.children[depth * n + i];
+                final int[] childPath = Arrays.copyOf(path, n);
+                childPath[depth] = next;
+                children.add(new SearchTask(searches, childPath, depth + 1, visited | 1L << next,
+                        length + search.distances[last * n + next]));
+            }
+            invokeAll(children);
+        }
+    }
+
+    /**
+     * Sequential depth-first search with its own scratch arrays, so that the recursion doesn't allocate.  Each worker
+     * thread gets one per solve.
+     */
+    private static class Search {
+        private final double[] distances;
+        private final int n;
+        private final Bound bound;
+        private final int[] path;
+        // Unvisited points at each depth, nearest first
+        private final int[] children;
+        // Scratch space for the minimum spanning tree lower bound
+        private final int[] treeNodes;
+        private final double[] treeKeys;
+        private int untilCheck = CHECK_INTERVAL;
+
+        private Search(double[] distances, int n, Bound bound) {
+            this.distances = distances;
+            this.n = n;
+            this.bound = bound;
+            path = new int[n];
+            children = new int[n * n];
+            treeNodes = new int[n];
+            treeKeys = new double[n];
+        }
+
+        private void search(int depth, long visited, double length) {
+            if (--untilCheck == 0) {
+                untilCheck = CHECK_INTERVAL;
+                bound.isStopped();
+            }
+            if (bound.stopped) {
+                return;
+            }
+            final int last = path[depth - 1];
+            if (depth == n) {
+                final double tourLength = length + distances[last * n];
+                if (tourLength < bound.length()) {
+                    bound.offer(path, tourLength);
+                }
+                return;
+            }
+            if (length + lowerBound(last, visited) >= bound.length()) {
+                return;
+            }
+
+            final int count = orderChildren(last, visited, depth);
+            for (int i = 0; i < count; i++) {
+                final int next = children[depth * n + i];
+                path[depth] = next;
+                search(depth + 1, visited | 1L << next, length + distances[last * n + next]);
+            }
+        }
+
+        /**
+         * Writes the unvisited points into this depth's slice of children, sorted by distance from last, and returns
+         * how many there are.
+         */
+        private int orderChildren(int last, long visited, int depth) {
+            final int offset = depth * n;
+            int count = 0;
+            for (int j = 0; j < n; j++) {
+                if ((visited & 1L << j) != 0) {
+                    continue;
+                }
+                // Insertion sort; there are at most n children
+                final double distance = distances[last * n + j];
+                int k = count;
+                while (k > 0 && distances[last * n + children[offset + k - 1]] > distance) {
+                    children[offset + k] = children[offset + k - 1];
+                    k--;
+                }
+                children[offset + k] = j;
+                count++;
+            }
+            return count;
+        }
+
+        /**
+         * Returns the weight of the minimum spanning tree over last, point 0, and every unvisited point, using Prim's
+         * algorithm on the dense distance matrix.
+         */
+        private double lowerBound(int last, long visited) {
+            int size = 0;
+            for (int j = 0; j < n; j++) {
+                if (j == 0 || (visited & 1L << j) == 0) {
+                    treeNodes[size] = j;
+                    treeKeys[size] = distances[last * n + j];
+                    size++;
+                }
+            }
+            double weight = 0;
+            while (size > 0) {
+                int nearest = 0;
+                for (int i = 1; i < size; i++) {
+                    if (treeKeys[i] < treeKeys[nearest]) {
+                        nearest = i;
+                    }
+                }
+                final int node = treeNodes[nearest];
+                weight += treeKeys[nearest];
+                size--;
+                treeNodes[nearest] = treeNodes[size];
+                treeKeys[nearest] = treeKeys[size];
+                for (int i = 0; i < size; i++) {
+                    final double distance = distances[node * n + treeNodes[i]];
+                    if (distance < treeKeys[i]) {
+                        treeKeys[i] = distance;
+                    }
+                }
+            }
+            return weight;
+        }
+    }
+}
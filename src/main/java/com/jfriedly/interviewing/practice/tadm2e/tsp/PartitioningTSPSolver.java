@@ -0,0 +1,272 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Splits the input into small regions, solves each one with another {@link TSPSolver} on a {@link ForkJoinPool}, and
+ * stitches the regional tours back together (Karp's partitioning scheme, Karp 1977).
+ *
+ *  1)  The points are split in half at the median of whichever axis has the larger spread, recursively, until each
+ *      region is small enough.  This is the same split a {@link KdTree} makes, so regions are balanced and compact.
+ *  2)  Each region is a separate ForkJoin task, which solves it with the delegate.  Regions are independent, so with
+ *      enough of them, this part scales with the number of cores.
+ *  3)  On the way back up the recursion, the two tours on either side of each split are merged into one:  remove one
+ *      edge from each and reconnect the two resulting paths.  Only edges that touch the points nearest to the split
+ *      line are tried, both ways around, and the cheapest combination wins.
+ *  4)  The merged tour is worst along the seams, since no regional tour could see the points across the split.  Points
+ *      within a few typical inter-point distances of a seam get candidate neighbor lists, and Lin-Kernighan and Or-opt
+ *      moves (see {@link LinKernighanTSPSolver}) repair the tour around them.
+ *
+ * Steps 1 and 3 are also spread across the pool, since they run inside the same tasks.  Only step 4 runs on a single
+ * thread, but it only starts from the points along the seams, which are a small fraction of the input.
+ *
+ * By default, regions are sized so that each thread in the pool gets a few of them, within fixed bounds:  small
+ * regions cut the tour in more places, and large ones leave threads idle.  The delegate is called from several
+ * threads at once, so it must not keep any state between calls.
+ */
+public class PartitioningTSPSolver implements TSPSolver {
+
+    public static final int DEFAULT_NEIGHBOR_COUNT = 8;
+    // Region size that asks for one based on the input and the pool
+    public static final int AUTO_REGION_SIZE = 0;
+    private static final int MIN_REGION_SIZE = 1_000;
+    private static final int MAX_REGION_SIZE = 20_000;
+    // Regions per thread, so that one slow region doesn't leave every other thread idle
+    private static final int REGIONS_PER_THREAD = 4;
+    // Tour positions tried on each side of a split when merging two tours
+    private static final int STITCH_CANDIDATES = 32;
+    // Half-width of the strip along each seam that gets repaired, in typical distances between points
+    private static final double SEAM_WIDTH = 3;
+
+    private final TSPSolver delegate;
+    private final int regionSize;
+    private final ForkJoinPool pool;
+
+    public PartitioningTSPSolver() {
+        this(new LocalSearchTSPSolver(new GreedyEdgeTSPSolver()));
+    }
+
+    public PartitioningTSPSolver(TSPSolver delegate) {
+        this(delegate, AUTO_REGION_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a solver whose regions have at most regionSize points each, or are sized automatically if regionSize is
+     * {@link #AUTO_REGION_SIZE}.
+     */
+    public PartitioningTSPSolver(TSPSolver delegate, int regionSize, ForkJoinPool pool) {
+        if (regionSize < 1 && regionSize != AUTO_REGION_SIZE) {
+            throw new IllegalArgumentException("Regions need at least one point, got " + regionSize);
+        }
+        this.delegate = delegate;
+        this.regionSize = regionSize;
+        this.pool = pool;
+    }
+
+    @Override
+    public int[] findTour(double[] x, double[] y) {
+        final int n = x.length;
+        final int maxRegionSize = regionSize != AUTO_REGION_SIZE
+                ? regionSize
+                : Math.max(MIN_REGION_SIZE, Math.min(MAX_REGION_SIZE,
+                        n / (REGIONS_PER_THREAD * pool.getParallelism())));
+        if (n <= maxRegionSize) {
+            return delegate.findTour(x, y);
+        }
+        final int[] indexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            indexes[i] = i;
+        }
+        final boolean[] onSeam = new boolean[n];
+        final int[] tour = pool.invoke(new RegionTask(x, y, indexes, 0, n, maxRegionSize, onSeam));
+        if (n < 5) {
+            return tour;
+        }
+
+        // Candidate neighbors for the points along the seams, among each other
+        int seamCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (onSeam[i]) {
+                indexes[seamCount++] = i;
+            }
+        }
+        final int[] seams = Arrays.copyOf(indexes, seamCount);
+        final double[] seamX = new double[seamCount];
+        final double[] seamY = new double[seamCount];
+        for (int i = 0; i < seamCount; i++) {
+            seamX[i] = x[seams[i]];
+            seamY[i] = y[seams[i]];
+        }
+        final int k = DEFAULT_NEIGHBOR_COUNT;
+        final int[] seamNeighbors = KdTree.neighborLists(seamX, seamY, k);
+        final int[] neighbors = new int[n * k];
+        Arrays.fill(neighbors, -1);
+        for (int i = 0; i < seamCount; i++) {
+            for (int j = 0; j < k; j++) {
+                final int neighbor = seamNeighbors[i * k + j];
+                neighbors[seams[i] * k + j] = neighbor == -1 ? -1 : seams[neighbor];
+            }
+        }
+        return LinKernighanTSPSolver.repair(x, y, tour, neighbors, k, seams, Deadline.none());
+    }
+
+    /**
+     * Finds a tour through the points indexes[lo, hi), either by solving it directly or by splitting it in two and
+     * merging the halves' tours.  Marks the points along each split in onSeam.
+     */
+    private class RegionTask extends RecursiveTask<int[]> {
+        private final double[] x;
+        private final double[] y;
+        private final int[] indexes;
+        private final int lo;
+        private final int hi;
+        private final int maxRegionSize;
+        private final boolean[] onSeam;
+
+        private RegionTask(double[] x, double[] y, int[] indexes, int lo, int hi, int maxRegionSize,
+                           boolean[] onSeam) {
+            this.x = x;
+            this.y = y;
+            this.indexes = indexes;
+            this.lo = lo;
+            this.hi = hi;
+            this.maxRegionSize = maxRegionSize;
+            this.onSeam = onSeam;
+        }
+
+        @Override
+        protected int[] compute() {
+            final int count = hi - lo;
+            if (count <= maxRegionSize) {
+                return solveRegion();
+            }
+            double minX = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                minX = Math.min(minX, x[indexes[i]]);
+                maxX = Math.max(maxX, x[indexes[i]]);
+                minY = Math.min(minY, y[indexes[i]]);
+                maxY = Math.max(maxY, y[indexes[i]]);
+            }
+            final boolean byX = maxX - minX >= maxY - minY;
+            final double[] coordinates = byX ? x : y;
+            final int mid = (lo + hi) >>> 1;
+            KdTree.select(indexes, coordinates, lo, hi - 1, mid);
+            final double split = coordinates[indexes[mid]];
+
+            // Points are about sqrt(area / count) apart, or extent / count if they're all on one line
+            final double area = (maxX - minX) * (maxY - minY);
+            final double spacing = area > 0
+                    ? Math.sqrt(area / count)
+                    : Math.max(maxX - minX, maxY - minY) / count;
+            final double seamWidth = SEAM_WIDTH * spacing;
+            for (int i = lo; i < hi; i++) {
+                if (Math.abs(coordinates[indexes[i]] - split) <= seamWidth) {
+                    onSeam[indexes[i]] = true;
+                }
+            }
+
+            final RegionTask left = new RegionTask(x, y, indexes, lo, mid, maxRegionSize, onSeam);
+            final RegionTask right = new RegionTask(x, y, indexes, mid, hi, maxRegionSize, onSeam);
+            left.fork();
+            final int[] rightTour = right.compute();
+            final int[] leftTour = left.join();
+            return stitch(leftTour, rightTour, coordinates, split);
+        }
+
+        private int[] solveRegion() {
+            final int count = hi - lo;
+            final double[] regionX = new double[count];
+            final double[] regionY = new double[count];
+            for (int i = 0; i < count; i++) {
+                regionX[i] = x[indexes[lo + i]];
+                regionY[i] = y[indexes[lo + i]];
+            }
+            final int[] regionTour = delegate.findTour(regionX, regionY);
+            final int[] tour = new int[count];
+            for (int i = 0; i < count; i++) {
+                tour[i] = indexes[lo + regionTour[i]];
+            }
+            return tour;
+        }
+
+        /**
+         * Merges two tours into one by removing an edge (p, p') from the left one and an edge (q, q') from the right,
+         * where each edge runs forward, and connecting p to one of q and q' and p' to the other.
+         */
+        private int[] stitch(int[] left, int[] right, double[] coordinates, double split) {
+            final int[] leftCandidates = nearestToSplit(left, coordinates, split);
+            final int[] rightCandidates = nearestToSplit(right, coordinates, split);
+            double bestCost = Double.POSITIVE_INFINITY;
+            int bestLeft = 0;
+            int bestRight = 0;
+            boolean bestCrossed = false;
+            for (int i : leftCandidates) {
+                final int p = left[i];
+                final int pNext = left[(i + 1) % left.length];
+                final double pEdge = distance(p, pNext);
+                for (int j : rightCandidates) {
+                    final int q = right[j];
+                    final int qNext = right[(j + 1) % right.length];
+                    final double removed = pEdge + distance(q, qNext);
+                    // Crossed:  p to q, backward through the right tour to q', then q' to p'
+                    final double crossed = distance(p, q) + distance(qNext, pNext) - removed;
+                    // Straight:  p to q', forward through the right tour to q, then q to p'
+                    final double straight = distance(p, qNext) + distance(q, pNext) - removed;
+                    if (Math.min(crossed, straight) < bestCost) {
+                        bestCost = Math.min(crossed, straight);
+                        bestLeft = i;
+                        bestRight = j;
+                        bestCrossed = crossed < straight;
+                    }
+                }
+            }
+
+            final int[] merged = new int[left.length + right.length];
+            int written = 0;
+            for (int i = 1; i <= left.length; i++) {
+                merged[written++] = left[(bestLeft + i) % left.length];
+            }
+            for (int j = 0; j < right.length; j++) {
+                merged[written++] = bestCrossed
+                        ? right[(bestRight - j + right.length) % right.length]
+                        : right[(bestRight + 1 + j) % right.length];
+            }
+            return merged;
+        }
+
+        /**
+         * Returns the positions in the tour of the {@link #STITCH_CANDIDATES} points closest to the split line.
+         */
+        private int[] nearestToSplit(int[] tour, double[] coordinates, double split) {
+            final int capacity = Math.min(STITCH_CANDIDATES, tour.length);
+            final int[] positions = new int[capacity];
+            final double[] offsets = new double[capacity];
+            int count = 0;
+            for (int i = 0; i < tour.length; i++) {
+                final double offset = Math.abs(coordinates[tour[i]] - split);
+                if (count == capacity && offset >= offsets[count - 1]) {
+                    continue;
+                }
+                // Insertion into the sorted best so far, dropping the farthest one if it's full
+                int j = count < capacity ? count++ : count - 1;
+                while (j > 0 && offsets[j - 1] > offset) {
+                    positions[j] = positions[j - 1];
+                    offsets[j] = offsets[j - 1];
+                    j--;
+                }
+                positions[j] = i;
+                offsets[j] = offset;
+            }
+            return positions;
+        }
+
+        private double distance(int i, int j) {
+            return Tours.distance(x, y, i, j);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link AnytimeTSPSolver} run's deadline, and the tours it has passed to its listener so far.
+ *
+ * Local search improves its tour thousands of times a second, and copying the whole tour out each time would swamp the
+ * search, so those solvers only publish when {@link #isDue()} says enough time has passed since the last tour went
+ * out.  Exact solvers find new tours rarely enough to publish every one.  Nothing gets copied if there's no listener.
+ */
+final class Progress {
+
+    private static final long PUBLISH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Deadline deadline;
+    private final TourListener listener;
+    private int[] published;
+    private double publishedLength = Double.POSITIVE_INFINITY;
+    private long publishedAt;
+
+    Progress(Deadline deadline, TourListener listener) {
+        this.deadline = deadline;
+        this.listener = listener;
+    }
+
+    Deadline deadline() {
+        return deadline;
+    }
+
+    boolean isExpired() {
+        return deadline.isExpired();
+    }
+
+    /**
+     * Returns true if there's a listener and it hasn't been sent a tour recently.
+     */
+    synchronized boolean isDue() {
+        return listener != TourListener.NONE
+                && (published == null || System.nanoTime() - publishedAt >= PUBLISH_INTERVAL_NANOS);
+    }
+
+    /**
+     * Sends the listener a copy of the tour, if it's shorter than the last one it was sent.
+     */
+    synchronized void publish(int[] tour, double length) {
+        if (listener != TourListener.NONE && length < publishedLength) {
+            send(tour, length);
+        }
+    }
+
+    /**
+     * Returns the tour the solver should return:  its final tour, which the listener is sent a copy of if it's shorter
+     * than the last one sent, or else the last one sent.  Either way, the listener's last tour is the one returned, and
+     * it never receives a tour that isn't shorter than the one before it.
+     */
+    synchronized int[] finish(int[] tour, double length) {
+        if (listener == TourListener.NONE || Arrays.equals(published, tour)) {
+            return tour;
+        }
+        if (length < publishedLength) {
+            send(tour, length);
+            return tour;
+        }
+        // No shorter, so it can only be the same tour rotated or otherwise written out differently
+        return published;
+    }
+
+    private void send(int[] tour, double length) {
+        published = Arrays.copyOf(tour, tour.length);
+        publishedLength = length;
+        publishedAt = System.nanoTime();
+        listener.improved(Arrays.copyOf(tour, tour.length), length);
+    }
+}
@@ -0,0 +1,266 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs every {@link TSPSolver} on a set of instances and reports how long each one takes, how much it allocates, and
+ * how far its tours are from optimal, for choosing a solver by input size and for catching regressions.
+ *
+ * Usage:  {@code TSPBenchmark [--warmup=N] [--iterations=N] [file.tsp[=optimum] ...]}, or {@code gradle benchmark
+ * -Pinstances=file.tsp=optimum,...}.  Each file is a TSPLIB EUC_2D instance (see {@link TSPLib}), optionally followed
+ * by the length of its optimal tour, which TSPLIB publishes for all of its instances.  With no files, it runs on random
+ * uniform instances of a few sizes, and the gap is measured against the expected optimal tour length for random
+ * uniform points, about 0.7124 sqrt(n A) (Beardwood, Halton, and Hammersley 1959, with the constant from Johnson,
+ * McGeoch, and Rothberg 1996).  That estimate is only accurate for large n.
+ *
+ * Each solver runs a few warmup iterations first, so that the JIT compiler has a chance to compile its hot loops, and
+ * then a few measured iterations.  Reported times are wall-clock times for the whole call.  Allocation is measured
+ * with {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, which only counts the calling thread,
+ * so it misses whatever parallel solvers allocate on their worker threads.  Exact and quadratic solvers are skipped on
+ * instances that are too large for them to finish.
+ */
+public class TSPBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TSPBenchmark.class);
+
+    public static final int DEFAULT_WARMUP_ITERATIONS = 2;
+    public static final int DEFAULT_MEASUREMENT_ITERATIONS = 5;
+    private static final int[] RANDOM_SIZES = { 10, 1_000, 100_000 };
+    // Random instances are spread over a square big enough that TSPLIB's rounding doesn't matter
+    private static final double RANDOM_SIDE = 1_000_000;
+    private static final double TOUR_CONSTANT = 0.7124;
+    private static final long SEED = 1959;
+
+    /**
+     * Every solver worth benchmarking, and the largest instance it's practical to run it on.
+     */
+    private static final Map<String, Candidate> SOLVERS = new LinkedHashMap<>();
+
+    static {
+        SOLVERS.put("Optimal", new Candidate(new OptimalTSPSolver(), 10));
+        SOLVERS.put("HeldKarp", new Candidate(new HeldKarpTSPSolver(), 16));
+        SOLVERS.put("BranchAndBound", new Candidate(new ParallelBranchAndBoundTSPSolver(), 16));
+        SOLVERS.put("ClosestPair", new Candidate(new ClosestPairTSPSolver(), 300));
+        SOLVERS.put("NearestNeighbor", new Candidate(new NearestNeighborTSPSolver(), 20_000));
+        SOLVERS.put("KdTreeNearestNeighbor", new Candidate(new KdTreeNearestNeighborTSPSolver(), Integer.MAX_VALUE));
+        SOLVERS.put("GreedyEdge", new Candidate(new GreedyEdgeTSPSolver(), Integer.MAX_VALUE));
+        SOLVERS.put("MinimumSpanningTree", new Candidate(new MinimumSpanningTreeTSPSolver(), Integer.MAX_VALUE));
+        SOLVERS.put("MinimumSpanningTree+Matching",
+                new Candidate(new MinimumSpanningTreeTSPSolver(true), Integer.MAX_VALUE));
+        SOLVERS.put("HilbertCurve", new Candidate(new HilbertCurveTSPSolver(), Integer.MAX_VALUE));
+        SOLVERS.put("LocalSearch", new Candidate(new LocalSearchTSPSolver(), Integer.MAX_VALUE));
+        SOLVERS.put("LinKernighan", new Candidate(new LinKernighanTSPSolver(), Integer.MAX_VALUE));
+        SOLVERS.put("Partitioning", new Candidate(new PartitioningTSPSolver(), Integer.MAX_VALUE));
+    }
+
+    private static final class Candidate {
+
+        private final TSPSolver solver;
+        private final int maxPoints;
+
+        private Candidate(TSPSolver solver, int maxPoints) {
+            this.solver = solver;
+            this.maxPoints = maxPoints;
+        }
+    }
+
+    /**
+     * Measurements of one solver on one instance.  Times are in nanoseconds, and the allocation is -1 if the JVM
+     * can't measure it.  The gap is NaN if the optimal tour length isn't known.
+     */
+    public static final class Result {
+
+        private final String solver;
+        private final String instance;
+        private final int size;
+        private final long meanNanos;
+        private final long minNanos;
+        private final long allocatedBytes;
+        private final long length;
+        private final double gap;
+
+        /* pp */ Result(String solver, String instance, int size, long meanNanos, long minNanos, long allocatedBytes,
+                        long length, double gap) {
+            this.solver = solver;
+            this.instance = instance;
+            this.size = size;
+            this.meanNanos = meanNanos;
+            this.minNanos = minNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.length = length;
+            this.gap = gap;
+        }
+
+        public String getSolver() {
+            return solver;
+        }
+
+        public String getInstance() {
+            return instance;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getMeanNanos() {
+            return meanNanos;
+        }
+
+        public long getMinNanos() {
+            return minNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public double getGap() {
+            return gap;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-28s %-16s %8d %12.3f %12.3f %12s %14d %8s",
+                    solver, instance, size, meanNanos / 1e6, minNanos / 1e6,
+                    allocatedBytes < 0 ? "n/a" : String.format("%.3f", allocatedBytes / 1e6),
+                    length, Double.isNaN(gap) ? "n/a" : String.format("%.2f%%", 100 * gap));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+        int measurementIterations = DEFAULT_MEASUREMENT_ITERATIONS;
+        final List<TSPLib.Instance> instances = new ArrayList<>();
+        final List<Double> optima = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--warmup=")) {
+                warmupIterations = Integer.parseInt(arg.substring("--warmup=".length()));
+            } else if (arg.startsWith("--iterations=")) {
+                measurementIterations = Integer.parseInt(arg.substring("--iterations=".length()));
+            } else {
+                final int equals = arg.lastIndexOf('=');
+                final String path = equals < 0 ? arg : arg.substring(0, equals);
+                instances.add(TSPLib.read(Paths.get(path)));
+                optima.add(equals < 0 ? Double.NaN : Double.parseDouble(arg.substring(equals + 1)));
+            }
+        }
+        if (instances.isEmpty()) {
+            final Random random = new Random(SEED);
+            for (int size : RANDOM_SIZES) {
+                instances.add(randomInstance(size, random));
+                optima.add(TOUR_CONSTANT * Math.sqrt(size) * RANDOM_SIDE);
+            }
+        }
+
+        logger.info(String.format("%-28s %-16s %8s %12s %12s %12s %14s %8s",
+                "solver", "instance", "n", "mean ms", "min ms", "alloc MB", "length", "gap"));
+        for (int i = 0; i < instances.size(); i++) {
+            for (Result result : run(instances.get(i), optima.get(i), warmupIterations, measurementIterations)) {
+                logger.info(result.toString());
+            }
+        }
+    }
+
+    /**
+     * Benchmarks every solver that can handle the instance's size on it.  Pass NaN if the optimum isn't known.
+     */
+    public static List<Result> run(TSPLib.Instance instance, double optimum, int warmupIterations,
+                                   int measurementIterations) {
+        final List<Result> results = new ArrayList<>();
+        for (Map.Entry<String, Candidate> entry : SOLVERS.entrySet()) {
+            if (instance.size() <= entry.getValue().maxPoints) {
+                results.add(measure(entry.getKey(), entry.getValue().solver, instance, optimum, warmupIterations,
+                        measurementIterations));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs one solver on one instance, warmupIterations times without measuring it and then measurementIterations
+     * times measuring it, and reports the shortest tour it found.
+     */
+    public static Result measure(String name, TSPSolver solver, TSPLib.Instance instance, double optimum,
+                                 int warmupIterations, int measurementIterations) {
+        if (measurementIterations <= 0) {
+            throw new IllegalArgumentException("Need at least one measured iteration, got " + measurementIterations);
+        }
+        final double[] x = instance.getX();
+        final double[] y = instance.getY();
+        for (int i = 0; i < warmupIterations; i++) {
+            solver.findTour(x, y);
+        }
+
+        long totalNanos = 0;
+        long minNanos = Long.MAX_VALUE;
+        long totalAllocated = 0;
+        long shortest = Long.MAX_VALUE;
+        for (int i = 0; i < measurementIterations; i++) {
+            final long allocatedBefore = allocatedBytes();
+            final long start = System.nanoTime();
+            final int[] tour = solver.findTour(x, y);
+            final long elapsed = System.nanoTime() - start;
+            totalAllocated += allocatedBytes() - allocatedBefore;
+            totalNanos += elapsed;
+            minNanos = Math.min(minNanos, elapsed);
+            checkTour(name, tour, instance.size());
+            shortest = Math.min(shortest, instance.length(tour));
+        }
+        return new Result(name, instance.getName(), instance.size(), totalNanos / measurementIterations, minNanos,
+                allocatedBytes() < 0 ? -1 : totalAllocated / measurementIterations, shortest,
+                shortest / optimum - 1);
+    }
+
+    /**
+     * Returns how many bytes the current thread has allocated so far, or -1 if the JVM can't tell.
+     */
+    private static long allocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static void checkTour(String name, int[] tour, int n) {
+        final boolean[] visited = new boolean[n];
+        for (int point : tour) {
+            if (point < 0 || point >= n || visited[point]) {
+                throw new IllegalStateException(name + " visited point " + point + " more than once or out of range");
+            }
+            visited[point] = true;
+        }
+        if (tour.length != n) {
+            throw new IllegalStateException(name + " visited " + tour.length + " of " + n + " points");
+        }
+    }
+
+    private static TSPLib.Instance randomInstance(int n, Random random) {
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * RANDOM_SIDE;
+            y[i] = random.nextDouble() * RANDOM_SIDE;
+        }
+        return new TSPLib.Instance("uniform" + n, x, y);
+    }
+}
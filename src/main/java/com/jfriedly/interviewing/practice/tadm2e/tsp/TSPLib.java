@@ -0,0 +1,175 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads symmetric TSP instances in the TSPLIB format (Reinelt 1991), the standard benchmark library for TSP heuristics.
+ *
+ * A TSPLIB file is a header of "KEY : VALUE" lines followed by data sections.  Only instances whose points are given
+ * as 2-D coordinates with EDGE_WEIGHT_TYPE EUC_2D are supported, since those are the only ones {@link TSPSolver} can
+ * represent.  Their NODE_COORD_SECTION has one "id x y" line per point, with ids running from 1 to DIMENSION in any
+ * order.  Point id i is read into index i - 1.
+ *
+ * TSPLIB measures EUC_2D tours with every edge rounded to the nearest integer, and the published optimal tour lengths
+ * are in that metric, so {@link Instance#length(int[])} rounds the same way.
+ */
+public final class TSPLib {
+
+    private TSPLib() {
+    }
+
+    /**
+     * A TSPLIB instance:  its name and the coordinates of its points.
+     */
+    public static final class Instance {
+
+        private final String name;
+        private final double[] x;
+        private final double[] y;
+
+        public Instance(String name, double[] x, double[] y) {
+            if (x.length != y.length) {
+                throw new IllegalArgumentException("Got " + x.length + " x coordinates but " + y.length + " y");
+            }
+            this.name = name;
+            this.x = x;
+            this.y = y;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int size() {
+            return x.length;
+        }
+
+        public double[] getX() {
+            return x;
+        }
+
+        public double[] getY() {
+            return y;
+        }
+
+        /**
+         * Returns the length of the tour as TSPLIB measures it, with each edge rounded to the nearest integer.
+         */
+        public long length(int[] tour) {
+            long length = 0;
+            for (int i = 0; i < tour.length; i++) {
+                length += (long) (Tours.distance(x, y, tour[i], tour[i + 1 == tour.length ? 0 : i + 1]) + 0.5);
+            }
+            return length;
+        }
+    }
+
+    public static Instance read(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads one instance.  Throws {@link IllegalArgumentException} if the input is malformed or isn't a symmetric
+     * EUC_2D instance.
+     */
+    public static Instance read(BufferedReader reader) throws IOException {
+        String name = null;
+        int dimension = -1;
+        double[] x = null;
+        double[] y = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.equals("EOF")) {
+                break;
+            }
+            if (line.equals("NODE_COORD_SECTION")) {
+                if (dimension < 0) {
+                    throw new IllegalArgumentException("NODE_COORD_SECTION comes before DIMENSION");
+                }
+                x = new double[dimension];
+                y = new double[dimension];
+                readCoordinates(reader, x, y);
+                continue;
+            }
+            final int colon = line.indexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Unsupported section or malformed header line: " + line);
+            }
+            final String key = line.substring(0, colon).trim();
+            final String value = line.substring(colon + 1).trim();
+            switch (key) {
+                case "NAME":
+                    name = value;
+                    break;
+                case "TYPE":
+                    if (!value.equals("TSP")) {
+                        throw new IllegalArgumentException("Only symmetric TSP instances are supported, not " + value);
+                    }
+                    break;
+                case "DIMENSION":
+                    dimension = parseDimension(value);
+                    break;
+                case "EDGE_WEIGHT_TYPE":
+                    if (!value.equals("EUC_2D")) {
+                        throw new IllegalArgumentException("Only EUC_2D instances are supported, not " + value);
+                    }
+                    break;
+                default:
+                    // COMMENT, and anything else that doesn't change how the coordinates are read
+                    break;
+            }
+        }
+        if (x == null) {
+            throw new IllegalArgumentException("Missing NODE_COORD_SECTION");
+        }
+        return new Instance(name, x, y);
+    }
+
+    private static int parseDimension(String value) {
+        try {
+            final int dimension = Integer.parseInt(value);
+            if (dimension >= 0) {
+                return dimension;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the exception below
+        }
+        throw new IllegalArgumentException("Invalid DIMENSION: " + value);
+    }
+
+    private static void readCoordinates(BufferedReader reader, double[] x, double[] y) throws IOException {
+        final boolean[] seen = new boolean[x.length];
+        for (int read = 0; read < x.length; read++) {
+            final String line = reader.readLine();
+            if (line == null) {
+                throw new IllegalArgumentException("Expected " + x.length + " points but got " + read);
+            }
+            final String[] fields = line.trim().split("\\s+");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Malformed coordinate line: " + line);
+            }
+            final int index;
+            try {
+                index = Integer.parseInt(fields[0]) - 1;
+                if (index < 0 || index >= x.length || seen[index]) {
+                    throw new IllegalArgumentException("Invalid or repeated point id: " + fields[0]);
+                }
+                x[index] = Double.parseDouble(fields[1]);
+                y[index] = Double.parseDouble(fields[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed coordinate line: " + line, e);
+            }
+            seen[index] = true;
+        }
+    }
+}
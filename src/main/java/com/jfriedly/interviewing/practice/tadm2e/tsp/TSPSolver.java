@@ -15,6 +15,10 @@ import com.esri.core.geometry.Polyline;
  * points *i* and *k* <= the sum of the distance between points *i* and *j*, and the distance between points *j*
  * and *k*.  The Euclidean distance function is also symmetric.
  *
+ * Implementations work on primitive arrays:  coordinates come in as two {@code double[]}s and the tour goes out as an
+ * {@code int[]} permutation of point indexes, so that inner loops never allocate geometry objects or dispatch through
+ * the geometry engine just to measure a distance.  {@link #findTour(MultiPoint)} adapts that core to Esri's types.
+ *
  * Note to self:  I'm not terribly impressed by Esri's geometry library.  The primitive data structures aren't nearly
  * flexible enough, and the primitive operations aren't always guaranteed to return correct results.  Try out JTS
  * next time you need a geometry library.
@@ -34,5 +38,20 @@ public interface TSPSolver {
      *         are in fact ordered and therefore define a line through each point, it appears that the library
      *         authors intend for users to use {@link Polyline} for this.
      */
-    Polyline findTour(MultiPoint input);
+    default Polyline findTour(MultiPoint input) {
+        final double[] x = new double[input.getPointCount()];
+        final double[] y = new double[input.getPointCount()];
+        Tours.queryCoordinates(input, x, y);
+        return Tours.toPolyline(x, y, findTour(x, y));
+    }
+
+    /**
+     * Finds a tour through the points (x[i], y[i]).  The tour is not guaranteed to be the shortest tour possible.
+     *
+     * @param x x coordinates of the points.  Implementations must not modify it.
+     * @param y y coordinates of the points, the same length as x.  Implementations must not modify it.
+     * @return The order in which to visit the points:  a permutation of the indexes 0 through n - 1.  The edge from
+     *         the last point back to the first one is implied.
+     */
+    int[] findTour(double[] x, double[] y);
 }
@@ -0,0 +1,22 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Receives each improved tour from an {@link AnytimeTSPSolver} while it's still searching.
+ *
+ * Every tour passed in is shorter than the one before it, and belongs to the listener, which may keep it.  Solvers are
+ * free to skip intermediate tours, and the fast ones limit how often they copy their tour out, so the listener may not
+ * see every improvement, but the last tour it receives is always the one the solver returns.  Parallel solvers may
+ * call the listener from their worker threads, but never from two threads at once.
+ */
+@FunctionalInterface
+public interface TourListener {
+
+    TourListener NONE = (tour, length) -> {
+    };
+
+    /**
+     * @param tour   The improved tour, as a permutation of the point indexes.
+     * @param length Its total length, including the edge from the last point back to the first.
+     */
+    void improved(int[] tour, double length);
+}
@@ -0,0 +1,66 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import com.esri.core.geometry.MultiPoint;
+import com.esri.core.geometry.Point2D;
+import com.esri.core.geometry.Polyline;
+
+/**
+ * Helpers for the primitive tour representation used by {@link TSPSolver} implementations.
+ *
+ * Solvers work on two parallel {@code double[]}s of coordinates and return a tour as an {@code int[]} permutation of
+ * the point indexes, with the edge from the last point back to the first left implicit.  The methods here convert
+ * between that representation and Esri's geometry types, which should only ever happen at the edges of the API.
+ */
+public final class Tours {
+
+    private Tours() {
+    }
+
+    /**
+     * Copies the coordinates of every point in the input into x and y, which must be at least as long as the input.
+     */
+    public static void queryCoordinates(MultiPoint input, double[] x, double[] y) {
+        final Point2D point = new Point2D();
+        for (int i = 0; i < input.getPointCount(); i++) {
+            input.getXY(i, point);
+            x[i] = point.x;
+            y[i] = point.y;
+        }
+    }
+
+    /**
+     * Builds a closed {@link Polyline} visiting the points in tour order.  An empty tour produces an empty Polyline.
+     */
+    public static Polyline toPolyline(double[] x, double[] y, int[] tour) {
+        final Polyline polyline = new Polyline();
+        if (tour.length == 0) {
+            return polyline;
+        }
+        polyline.startPath(x[tour[0]], y[tour[0]]);
+        for (int i = 1; i < tour.length; i++) {
+            polyline.lineTo(x[tour[i]], y[tour[i]]);
+        }
+        polyline.closePathWithLine();
+        return polyline;
+    }
+
+    /**
+     * Returns the Euclidean distance between points i and j.
+     */
+    public static double distance(double[] x, double[] y, int i, int j) {
+        final double dx = x[i] - x[j];
+        final double dy = y[i] - y[j];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the total length of the tour, including the edge from the last point back to the first.
+     */
+    public static double length(double[] x, double[] y, int[] tour) {
+        double length = 0;
+        for (int i = 0; i < tour.length; i++) {
+            length += distance(x, y, tour[i], tour[i + 1 == tour.length ? 0 : i + 1]);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,62 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import java.util.stream.IntStream;
+
+/**
+ * Every distance between n points, precomputed into a {@code float[]} on the heap.
+ *
+ * Distances are symmetric and the diagonal is always zero, so only the entries below the diagonal are stored:  row i
+ * holds the i distances from point i to points 0 through i - 1, and the rows are laid out one after another.  That's
+ * n (n - 1) / 2 entries, and storing them as floats halves the memory again, at the cost of rounding each distance to
+ * about seven significant digits.  An array holds at most 2^31 - 1 entries, which limits the matrix to
+ * {@link #MAX_POINTS} points, or 8 GB.  {@link MappedDistanceMatrix} has no such limit.
+ */
+public final class TriangularDistanceMatrix implements DistanceProvider {
+
+    public static final int MAX_POINTS = 65_536;
+
+    private final int n;
+    private final float[] entries;
+
+    /**
+     * Copies every distance out of the source, which is read by several threads at once.
+     */
+    public TriangularDistanceMatrix(DistanceProvider source) {
+        n = source.size();
+        if (n > MAX_POINTS) {
+            throw new IllegalArgumentException("Can't store distances between " + n + " points; the limit is "
+                    + MAX_POINTS);
+        }
+        entries = new float[(int) entryCount(n)];
+        IntStream.range(1, n).parallel().forEach(i -> {
+            final int offset = (int) rowOffset(i);
+            for (int j = 0; j < i; j++) {
+                entries[offset + j] = (float) source.distance(i, j);
+            }
+        });
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        if (i == j) {
+            return 0;
+        }
+        return i > j ? entries[(int) rowOffset(i) + j] : entries[(int) rowOffset(j) + i];
+    }
+
+    /**
+     * Returns the position of the first entry in row i.
+     */
+    /* pp */ static long rowOffset(int i) {
+        return (long) i * (i - 1) / 2;
+    }
+
+    /* pp */ static long entryCount(int n) {
+        return rowOffset(n);
+    }
+}
@@ -0,0 +1,326 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Tour stored as a two-level doubly linked list (Fredman, Johnson, McGeoch, and Ostheimer 1995), so that reversing a
+ * path takes O(sqrt n) time instead of O(n).
+ *
+ * The tour is cut into segments of roughly sqrt(n) consecutive points.  Each point links to its neighbors inside its
+ * own segment, and each segment links to its neighbors in the cycle of segments.  Every segment also carries a
+ * reversed bit, which swaps the meaning of its points' next and previous links, and a sequence number giving its
+ * place in the cycle.  Reversing a path then takes two steps:
+ *
+ *  1)  Split the segments at the two ends of the path, so that the path is made up of whole segments.  Splitting
+ *      moves the smaller half of a segment into a new segment, which is O(sqrt n).
+ *  2)  Reverse the order of those segments in the segment cycle and flip each one's reversed bit.  No individual
+ *      point is touched, and there are O(sqrt n) segments.
+ *
+ * Paths that lie inside a single segment are cheaper to reverse point by point.  Splits add segments, so the whole
+ * structure is rebuilt from scratch in O(n) once there are about four times as many as it started with.  That happens
+ * once every O(sqrt n) reversals, so it doesn't change the amortized cost.
+ *
+ * Points link to each other only inside a segment.  Finding the neighbor of a point at the end of a segment goes
+ * through the segment cycle instead, so a reversed bit never leaves stale links behind in a neighboring segment.
+ */
+class TwoLevelTour {
+
+    private final int n;
+    private final int groupSize;
+    private final int capacity;
+
+    // Per point:  segment, sequence number within the segment, and raw links to neighbors in the same segment
+    private final int[] parent;
+    private final int[] id;
+    private final int[] rawNext;
+    private final int[] rawPrevious;
+
+    // Per segment.  first and last are raw, ignoring the reversed bit.
+    private int segmentCount;
+    private final boolean[] reversed;
+    private final int[] segmentId;
+    private final int[] first;
+    private final int[] last;
+    private final int[] nextSegment;
+    private final int[] previousSegment;
+    // Scratch space for reversing a path of segments
+    private final int[] path;
+
+    TwoLevelTour(int[] tour) {
+        n = tour.length;
+        groupSize = Math.max(8, (int) Math.sqrt(n));
+        final int initialSegments = (n + groupSize - 1) / groupSize;
+        capacity = 4 * initialSegments + 8;
+        parent = new int[n];
+        id = new int[n];
+        rawNext = new int[n];
+        rawPrevious = new int[n];
+        reversed = new boolean[capacity];
+        segmentId = new int[capacity];
+        first = new int[capacity];
+        last = new int[capacity];
+        nextSegment = new int[capacity];
+        previousSegment = new int[capacity];
+        path = new int[capacity];
+        build(tour);
+    }
+
+    int size() {
+        return n;
+    }
+
+    int next(int point) {
+        final int segment = parent[point];
+        if (!reversed[segment]) {
+            if (point != last[segment]) {
+                return rawNext[point];
+            }
+        } else if (point != first[segment]) {
+            return rawPrevious[point];
+        }
+        final int following = nextSegment[segment];
+        return reversed[following] ? last[following] : first[following];
+    }
+
+    int previous(int point) {
+        final int segment = parent[point];
+        if (!reversed[segment]) {
+            if (point != first[segment]) {
+                return rawPrevious[point];
+            }
+        } else if (point != last[segment]) {
+            return rawNext[point];
+        }
+        final int preceding = previousSegment[segment];
+        return reversed[preceding] ? first[preceding] : last[preceding];
+    }
+
+    /**
+     * Returns true if b lies on the path that runs forward from a to c, inclusive.
+     */
+    boolean between(int a, int b, int c) {
+        final long keyA = key(a);
+        final long keyB = key(b);
+        final long keyC = key(c);
+        if (keyA <= keyC) {
+            return keyA <= keyB && keyB <= keyC;
+        }
+        return keyB >= keyA || keyB <= keyC;
+    }
+
+    /**
+     * 2-opt move:  removes edges (a, b) and (c, d) and adds (a, c) and (b, d).  Either b follows a and d follows c,
+     * or b precedes a and d precedes c.
+     */
+    void move(int a, int b, int c, int d) {
+        if (next(a) == b) {
+            reverse(b, c);
+        } else {
+            reverse(c, b);
+        }
+    }
+
+    /**
+     * Returns the tour as an array, starting from point 0.
+     */
+    int[] toArray() {
+        final int[] tour = new int[n];
+        int point = 0;
+        for (int i = 0; i < n; i++) {
+            tour[i] = point;
+            point = next(point);
+        }
+        return tour;
+    }
+
+    /**
+     * Reverses the path that runs forward from one point to another.
+     */
+    private void reverse(int from, int to) {
+        if (segmentCount + 2 > capacity) {
+            build(toArray());
+        }
+        final int segment = parent[from];
+        if (segment == parent[to]) {
+            if (orientedId(from) <= orientedId(to)) {
+                reverseInsideSegment(segment, from, to);
+                return;
+            }
+            // The path wraps all the way around the tour, so reversing the rest of the tour, which lies inside this
+            // segment, gives the same cycle.
+            final int restStart = next(to);
+            if (restStart != from) {
+                reverseInsideSegment(segment, restStart, previous(from));
+            }
+            return;
+        }
+
+        splitBefore(from);
+        splitBefore(next(to));
+        final int firstSegment = parent[from];
+        final int lastSegment = parent[to];
+        final int count = Math.floorMod(segmentId[lastSegment] - segmentId[firstSegment], segmentCount) + 1;
+        if (count == segmentCount) {
+            // Reversing the whole tour gives the same cycle
+            return;
+        }
+        if (2 * count > segmentCount) {
+            reverseSegments(nextSegment[lastSegment], previousSegment[firstSegment]);
+        } else {
+            reverseSegments(firstSegment, lastSegment);
+        }
+    }
+
+    /**
+     * Reverses the path from one point to another, both in the given segment with from no later than to.
+     */
+    private void reverseInsideSegment(int segment, int from, int to) {
+        final int rawFrom = reversed[segment] ? to : from;
+        final int rawTo = reversed[segment] ? from : to;
+        final int before = rawFrom == first[segment] ? -1 : rawPrevious[rawFrom];
+        final int after = rawTo == last[segment] ? -1 : rawNext[rawTo];
+        final int idSum = id[rawFrom] + id[rawTo];
+        int point = rawFrom;
+        while (true) {
+            final int following = rawNext[point];
+            rawNext[point] = rawPrevious[point];
+            rawPrevious[point] = following;
+            id[point] = idSum - id[point];
+            if (point == rawTo) {
+                break;
+            }
+            point = following;
+        }
+        rawPrevious[rawTo] = before;
+        rawNext[rawFrom] = after;
+        if (before == -1) {
+            first[segment] = rawTo;
+        } else {
+            rawNext[before] = rawTo;
+        }
+        if (after == -1) {
+            last[segment] = rawFrom;
+        } else {
+            rawPrevious[after] = rawFrom;
+        }
+    }
+
+    /**
+     * Splits the given point's segment, if necessary, so that the point is the first one in its segment in tour
+     * order.  The smaller of the two halves moves to a new segment.
+     */
+    private void splitBefore(int point) {
+        final int segment = parent[point];
+        if (point == (reversed[segment] ? last[segment] : first[segment])) {
+            return;
+        }
+        // In raw order, the segment splits into [first, left] and [right, last]
+        final int left = reversed[segment] ? point : rawPrevious[point];
+        final int right = rawNext[left];
+        final int leftSize = id[left] - id[first[segment]] + 1;
+        final int rightSize = id[last[segment]] - id[right] + 1;
+        final boolean moveLeft = leftSize < rightSize;
+
+        final int created = segmentCount++;
+        reversed[created] = reversed[segment];
+        if (moveLeft) {
+            first[created] = first[segment];
+            last[created] = left;
+            first[segment] = right;
+        } else {
+            first[created] = right;
+            last[created] = last[segment];
+            last[segment] = left;
+        }
+        rawNext[left] = -1;
+        rawPrevious[right] = -1;
+        for (int moved = first[created]; moved != -1; moved = rawNext[moved]) {
+            parent[moved] = created;
+        }
+
+        // The raw left half comes first in the cycle unless the segment is reversed
+        if (moveLeft != reversed[segment]) {
+            final int preceding = previousSegment[segment];
+            nextSegment[preceding] = created;
+            previousSegment[created] = preceding;
+            nextSegment[created] = segment;
+            previousSegment[segment] = created;
+        } else {
+            final int following = nextSegment[segment];
+            previousSegment[following] = created;
+            nextSegment[created] = following;
+            previousSegment[created] = segment;
+            nextSegment[segment] = created;
+        }
+        renumberSegments();
+    }
+
+    /**
+     * Reverses the path of whole segments from one segment forward to another.
+     */
+    private void reverseSegments(int firstSegment, int lastSegment) {
+        final int before = previousSegment[firstSegment];
+        final int after = nextSegment[lastSegment];
+        final int startId = segmentId[firstSegment];
+        int count = 0;
+        for (int segment = firstSegment; ; segment = nextSegment[segment]) {
+            path[count++] = segment;
+            if (segment == lastSegment) {
+                break;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            final int segment = path[count - 1 - i];
+            reversed[segment] = !reversed[segment];
+            segmentId[segment] = (startId + i) % segmentCount;
+            nextSegment[segment] = i + 1 < count ? path[count - 2 - i] : after;
+            previousSegment[segment] = i > 0 ? path[count - i] : before;
+        }
+        nextSegment[before] = path[count - 1];
+        previousSegment[after] = path[0];
+    }
+
+    private void renumberSegments() {
+        int segment = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            segmentId[segment] = i;
+            segment = nextSegment[segment];
+        }
+    }
+
+    private int orientedId(int point) {
+        return reversed[parent[point]] ? -id[point] : id[point];
+    }
+
+    /**
+     * Orders points by their position in the tour, starting from the segment numbered 0.  Sequence numbers within a
+     * segment always fall in [0, groupSize).
+     */
+    private long key(int point) {
+        final int segment = parent[point];
+        final int position = reversed[segment] ? groupSize - 1 - id[point] : id[point];
+        return (long) segmentId[segment] * groupSize + position;
+    }
+
+    /**
+     * Lays the tour out from scratch in segments of groupSize points.
+     */
+    private void build(int[] tour) {
+        segmentCount = (n + groupSize - 1) / groupSize;
+        for (int segment = 0; segment < segmentCount; segment++) {
+            final int start = segment * groupSize;
+            final int end = Math.min(n, start + groupSize);
+            reversed[segment] = false;
+            segmentId[segment] = segment;
+            first[segment] = tour[start];
+            last[segment] = tour[end - 1];
+            nextSegment[segment] = (segment + 1) % segmentCount;
+            previousSegment[segment] = (segment + segmentCount - 1) % segmentCount;
+            for (int i = start; i < end; i++) {
+                final int point = tour[i];
+                parent[point] = segment;
+                id[point] = i - start;
+                rawNext[point] = i + 1 < end ? tour[i + 1] : -1;
+                rawPrevious[point] = i > start ? tour[i - 1] : -1;
+            }
+        }
+    }
+}
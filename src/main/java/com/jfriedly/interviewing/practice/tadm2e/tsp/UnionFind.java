@@ -0,0 +1,46 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+/**
+ * Disjoint sets of points, with union by size and path halving.
+ */
+class UnionFind {
+
+    private final int[] parent;
+    private final int[] size;
+
+    UnionFind(int n) {
+        parent = new int[n];
+        size = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+    }
+
+    int find(int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Merges the sets containing i and j.  Returns false if they were already the same set.
+     */
+    boolean union(int i, int j) {
+        int rootI = find(i);
+        int rootJ = find(j);
+        if (rootI == rootJ) {
+            return false;
+        }
+        if (size[rootI] < size[rootJ]) {
+            final int temp = rootI;
+            rootI = rootJ;
+            rootJ = temp;
+        }
+        parent[rootJ] = rootI;
+        size[rootI] += size[rootJ];
+        return true;
+    }
+}
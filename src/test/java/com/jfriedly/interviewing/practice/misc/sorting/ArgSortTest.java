@@ -0,0 +1,82 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import org.assertj.core.api.Assertions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class ArgSortTest {
+
+    private static final Random RANDOM = new Random();
+
+    @DataProvider
+    private Object[][] argSortProvider() {
+        return new Object[][] {
+                { new ArgSort() },
+                { new ArgSort(ForkJoinPool.commonPool()) },
+                // Every sort and merge of more than a few elements is split across the pool
+                { new ArgSort(ForkJoinPool.commonPool(), 4) },
+        };
+    }
+
+    /**
+     * Asserts that order sorts the keys, and that it's stable:  it lists the indexes of equal keys in ascending order.
+     */
+    private static void assertStableOrder(int[] order, Comparator<Integer> keys) {
+        Assertions.assertThat(order)
+                .containsExactlyInAnyOrder(IntStream.range(0, order.length).toArray());
+        for (int i = 1; i < order.length; i++) {
+            final int comparison = keys.compare(order[i - 1], order[i]);
+            Assertions.assertThat(comparison)
+                    .isLessThanOrEqualTo(0);
+            if (comparison == 0) {
+                Assertions.assertThat(order[i - 1])
+                        .isLessThan(order[i]);
+            }
+        }
+    }
+
+    @Test(invocationCount = 5, dataProvider = "argSortProvider")
+    public void testArgSort(ArgSort argSort) {
+        final int n = RANDOM.nextInt(20_000);
+        final int[] ints = RANDOM.ints(n, -50, 50).toArray();
+        final long[] longs = RANDOM.longs(n).map(value -> value >> 60).toArray();
+        final double[] specialValues = {Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        final double[] doubles = new double[n];
+        for (int i = 0; i < n; i++) {
+            doubles[i] = RANDOM.nextBoolean() ? specialValues[RANDOM.nextInt(specialValues.length)] : RANDOM.nextInt(9);
+        }
+        final int[] intsCopy = Arrays.copyOf(ints, n);
+        final long[] longsCopy = Arrays.copyOf(longs, n);
+        final double[] doublesCopy = Arrays.copyOf(doubles, n);
+
+        assertStableOrder(argSort.argSort(ints), (i, j) -> Integer.compare(ints[i], ints[j]));
+        assertStableOrder(argSort.argSort(longs), (i, j) -> Long.compare(longs[i], longs[j]));
+        assertStableOrder(argSort.argSort(doubles), (i, j) -> Double.compare(doubles[i], doubles[j]));
+        Assertions.assertThat(ints).isEqualTo(intsCopy);
+        Assertions.assertThat(longs).isEqualTo(longsCopy);
+        Assertions.assertThat(doubles).isEqualTo(doublesCopy);
+    }
+
+    @Test
+    public void testPermuteColumns() {
+        final double[] scores = {0.5, -1, 2.5, 0};
+        final int[] ids = {10, 11, 12, 13};
+        final long[] timestamps = {100, 101, 102, 103};
+        final int[] order = new ArgSort().argSort(scores);
+
+        Assertions.assertThat(order)
+                .containsExactly(1, 3, 0, 2);
+        Assertions.assertThat(ArgSort.permute(scores, order))
+                .containsExactly(-1, 0, 0.5, 2.5);
+        Assertions.assertThat(ArgSort.permute(ids, order))
+                .containsExactly(11, 13, 10, 12);
+        Assertions.assertThat(ArgSort.permute(timestamps, order))
+                .containsExactly(101, 103, 100, 102);
+    }
+}
@@ -0,0 +1,102 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import org.assertj.core.api.Assertions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ExternalMergeSortTest {
+
+    private static final Random RANDOM = new Random();
+
+    private static Path writeInts(int[] values, ByteOrder order) throws IOException {
+        final Path path = Files.createTempFile("ints", ".bin");
+        final ByteBuffer bytes = ByteBuffer.allocate(values.length * Integer.BYTES).order(order);
+        bytes.asIntBuffer().put(values);
+        Files.write(path, bytes.array());
+        return path;
+    }
+
+    private static int[] readInts(Path path, ByteOrder order) throws IOException {
+        final IntBuffer ints = ByteBuffer.wrap(Files.readAllBytes(path)).order(order).asIntBuffer();
+        final int[] values = new int[ints.remaining()];
+        ints.get(values);
+        return values;
+    }
+
+    @DataProvider
+    private Object[][] externalSortProvider() throws IOException {
+        final Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+        return new Object[][] {
+                // Everything fits in one run
+                { new ExternalMergeSort(), 10_000, ByteOrder.LITTLE_ENDIAN },
+                { new ExternalMergeSort(new IntroSort(), 1_000, ForkJoinPool.commonPool(), tempDirectory), 10_000,
+                        ByteOrder.LITTLE_ENDIAN },
+                // 34 runs merged three at a time takes four passes, and the last run is short
+                { new ExternalMergeSort(new RadixSort(), 300, 3, ByteOrder.BIG_ENDIAN, ForkJoinPool.commonPool(),
+                        tempDirectory), 10_000, ByteOrder.BIG_ENDIAN },
+                { new ExternalMergeSort(), 0, ByteOrder.LITTLE_ENDIAN },
+        };
+    }
+
+    @Test(dataProvider = "externalSortProvider")
+    public void testExternalMergeSort(ExternalMergeSort sorter, int n, ByteOrder order) throws IOException {
+        final int[] input = RANDOM.ints(n).toArray();
+        final Path inputPath = writeInts(input, order);
+        final Path outputPath = Files.createTempFile("sorted", ".bin");
+        try {
+            sorter.sort(inputPath, outputPath);
+            final int[] expected = Arrays.copyOf(input, input.length);
+            Arrays.sort(expected);
+
+            Assertions.assertThat(readInts(outputPath, order))
+                    .isEqualTo(expected);
+            Assertions.assertThat(readInts(inputPath, order))
+                    .isEqualTo(input);
+        } finally {
+            Files.delete(inputPath);
+            Files.delete(outputPath);
+        }
+    }
+
+    @Test
+    public void testExternalMergeSortInPlace() throws IOException {
+        // 34 runs merged three at a time, so the final pass writes over the input
+        final ExternalMergeSort sorter = new ExternalMergeSort(new IntroSort(), 300, 3, ByteOrder.LITTLE_ENDIAN,
+                ForkJoinPool.commonPool(), Paths.get(System.getProperty("java.io.tmpdir")));
+        final int[] input = RANDOM.ints(10_000).toArray();
+        final Path path = writeInts(input, ByteOrder.LITTLE_ENDIAN);
+        try {
+            sorter.sort(path, path);
+            final int[] expected = Arrays.copyOf(input, input.length);
+            Arrays.sort(expected);
+
+            Assertions.assertThat(readInts(path, ByteOrder.LITTLE_ENDIAN))
+                    .isEqualTo(expected);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testExternalMergeSortRejectsPartialInts() throws IOException {
+        final Path path = Files.createTempFile("ints", ".bin");
+        try {
+            Files.write(path, new byte[] {1, 2, 3, 4, 5, 6});
+            Assertions.assertThatThrownBy(() -> new ExternalMergeSort().sort(path, path))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import org.assertj.core.api.Assertions;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class PrimitiveSortTest {
+
+    private static final Random RANDOM = new Random();
+
+    @Test(invocationCount = 10)
+    public void testLongIntroSort() {
+        final long[] input = RANDOM.longs(RANDOM.nextInt(1000)).map(value -> value % 50).toArray();
+        final int from = RANDOM.nextInt(input.length + 1);
+        final int to = from + RANDOM.nextInt(input.length - from + 1);
+        final long[] actual = Arrays.copyOf(input, input.length);
+        new LongIntroSort().sort(actual, from, to);
+        final long[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected, from, to);
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    @Test(dataProvider = "adversarialInputProvider", dataProviderClass = SorterTest.class)
+    public void testLongIntroSortAdversarialInput(int[] ints) {
+        final long[] input = Arrays.stream(ints).asLongStream().map(value -> value << 32).toArray();
+        final long[] actual = Arrays.copyOf(input, input.length);
+        new LongIntroSort().sort(actual);
+        final long[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    @Test(invocationCount = 10)
+    public void testDoubleIntroSort() {
+        final double[] specialValues = {Double.NaN, -0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, -Double.MIN_VALUE, Double.longBitsToDouble(0x7ff0000000000001L)};
+        final double[] input = new double[RANDOM.nextInt(1000)];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = RANDOM.nextBoolean()
+                    ? specialValues[RANDOM.nextInt(specialValues.length)]
+                    : RANDOM.nextInt(21) - 10;
+        }
+        final int from = RANDOM.nextInt(input.length + 1);
+        final int to = from + RANDOM.nextInt(input.length - from + 1);
+        final double[] actual = Arrays.copyOf(input, input.length);
+        new DoubleIntroSort().sort(actual, from, to);
+        final double[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected, from, to);
+
+        // Compare bits, since -0.0 and 0.0 are equal as doubles
+        Assertions.assertThat(Arrays.stream(actual).mapToLong(Double::doubleToLongBits).toArray())
+                .isEqualTo(Arrays.stream(expected).mapToLong(Double::doubleToLongBits).toArray());
+    }
+
+    @Test(invocationCount = 10)
+    public void testKeyPayloadMergeSortIsStable() {
+        final int n = RANDOM.nextInt(1000);
+        final int[] keys = RANDOM.ints(n, 0, 20).toArray();
+        // Each payload is the record's original position, so stability means payloads ascend within equal keys
+        final int[] payload = IntStream.range(0, n).toArray();
+        final int from = RANDOM.nextInt(n + 1);
+        final int to = from + RANDOM.nextInt(n - from + 1);
+        final int[] originalKeys = Arrays.copyOf(keys, n);
+        new KeyPayloadMergeSort().sort(keys, payload, from, to);
+
+        final int[] expectedKeys = Arrays.copyOf(originalKeys, n);
+        Arrays.sort(expectedKeys, from, to);
+        Assertions.assertThat(keys)
+                .isEqualTo(expectedKeys);
+        for (int i = 0; i < n; i++) {
+            Assertions.assertThat(originalKeys[payload[i]])
+                    .isEqualTo(keys[i]);
+            if (i < from || i >= to) {
+                Assertions.assertThat(payload[i]).isEqualTo(i);
+            } else if (i > from && keys[i - 1] == keys[i]) {
+                Assertions.assertThat(payload[i]).isGreaterThan(payload[i - 1]);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSortRejectsBadRange() {
+        new LongIntroSort().sort(new long[3], 2, 4);
+    }
+}
@@ -3,11 +3,15 @@ package com.jfriedly.interviewing.practice.misc.sorting;
 import org.assertj.core.api.Assertions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.testng.SkipException;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Arrays;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class SorterTest {
 
@@ -22,6 +26,17 @@ public class SorterTest {
                 { new BubbleSort() },
                 { new MergeSort() },
                 { new HeapSort() },
+                { new InPlaceHeapSort() },
+                { new ParallelMergeSort() },
+                // Tiny thresholds, so that even short inputs are split into parallel sorts and merges
+                { new ParallelMergeSort(ForkJoinPool.commonPool(), 2, 4) },
+                { new RadixSort() },
+                // Chunks of eight, so that every input long enough to radix sort is split across threads
+                { new RadixSort(ForkJoinPool.commonPool(), 8) },
+                { new IntroSort() },
+                // Never partitions, so it only exercises the heapsort fallback
+                { new IntroSort(0) },
+                { new NaturalMergeSort() },
         };
     }
 
@@ -70,8 +85,274 @@ public class SorterTest {
         final MergeSort mergeSort = new MergeSort();
         final int[] input = RANDOM.ints(RANDOM.nextInt(100), 0, 100).toArray();
         //final int[] input = new int[]{2,1,1,1};
-        final int expected = insertionSort.sortCountingInversions(Arrays.copyOf(input, input.length));
-        final int actual = mergeSort.mergeSortCountingInversions(Arrays.copyOf(input, input.length));
+        final long expected = insertionSort.sortCountingInversions(Arrays.copyOf(input, input.length));
+        final long actual = mergeSort.mergeSortCountingInversions(Arrays.copyOf(input, input.length));
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    @Test(invocationCount = 10)
+    public void testParallelInversionCounting() {
+        final int[] input = RANDOM.ints(RANDOM.nextInt(100), 0, 100).toArray();
+        final long expected = new InsertionSort().sortCountingInversions(Arrays.copyOf(input, input.length));
+        // Tiny thresholds, so that even short inputs are split into parallel sorts and merges
+        final long parallel = new ParallelMergeSort(ForkJoinPool.commonPool(), 2, 4)
+                .sortCountingInversions(Arrays.copyOf(input, input.length));
+
+        Assertions.assertThat(parallel)
+                .isEqualTo(expected);
+        Assertions.assertThat(Inversions.count(input))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    public void testInversionCountingLeavesInputAlone() {
+        final int[] input = RANDOM.ints(10_000, 0, 100).toArray();
+        final int[] original = input.clone();
+        final long expected = new MergeSort().mergeSortCountingInversions(input.clone());
+
+        Assertions.assertThat(Inversions.count(input))
+                .isEqualTo(expected);
+        Assertions.assertThat(input)
+                .isEqualTo(original);
+    }
+
+    @Test
+    public void testInversionCountingPastIntegerRange() {
+        // Every pair in a descending array is an inversion, which is more than an int can hold
+        final int n = 200_000;
+        final int[] input = new int[n];
+        for (int i = 0; i < n; i++) {
+            input[i] = n - i;
+        }
+
+        Assertions.assertThat(Inversions.count(input))
+                .isEqualTo((long) n * (n - 1) / 2);
+        Assertions.assertThat(new MergeSort().mergeSortCountingInversions(input))
+                .isEqualTo((long) n * (n - 1) / 2);
+    }
+
+    @Test(invocationCount = 10, dataProvider = "sorterImplsProvider")
+    public void testSortRange(Sorter sorter) {
+        final int[] input = RANDOM.ints(RANDOM.nextInt(100), 0, 100).toArray();
+        final int from = RANDOM.nextInt(input.length + 1);
+        final int to = from + RANDOM.nextInt(input.length - from + 1);
+        final int[] actual = Arrays.copyOf(input, input.length);
+        sorter.sort(actual, from, to);
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected, from, to);
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    @Test(invocationCount = 3, dataProvider = "sorterImplsProvider")
+    public void testSortLargeRange(Sorter sorter) {
+        // Long enough for the radix and parallel sorts to split the range, with a negative half to flip
+        final int[] input = RANDOM.ints(5_000, -1_000_000, 1_000_000).toArray();
+        final int from = RANDOM.nextInt(1_000);
+        final int to = input.length - RANDOM.nextInt(1_000);
+        final int[] actual = Arrays.copyOf(input, input.length);
+        sorter.sort(actual, from, to);
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected, from, to);
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    @Test(dataProvider = "adversarialInputProvider")
+    public void testInPlaceHeapSortAdversarialInput(int[] input) {
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+        final int[] actual = Arrays.copyOf(input, input.length);
+        new InPlaceHeapSort().sort(actual);
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    /**
+     * Only runs on JVMs that can measure how much memory a thread allocates, such as HotSpot.
+     */
+    @Test
+    public void testInPlaceHeapSortDoesNotAllocate() {
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            throw new SkipException("This JVM can't measure allocations per thread");
+        }
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) threadBean;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            throw new SkipException("This JVM can't measure allocations per thread");
+        }
+        final Sorter sorter = new InPlaceHeapSort();
+        final int[] input = RANDOM.ints(1 << 20).toArray();
+        // Once to load and compile everything, then once to measure
+        sorter.sort(Arrays.copyOf(input, input.length));
+        final long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        sorter.sort(input);
+        final long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        // A copy of the input would be 4 MB.  Allow for anything the JVM allocates on the thread's behalf meanwhile.
+        Assertions.assertThat(allocated)
+                .isLessThan(input.length * Integer.BYTES / 4);
+    }
+
+    @Test(invocationCount = 10, dataProvider = "sorterImplsProvider")
+    public void testSelect(Sorter sorter) {
+        final int[] input = RANDOM.ints(1 + RANDOM.nextInt(100), 0, 100).toArray();
+        final int k = RANDOM.nextInt(input.length);
+        final int[] actual = Arrays.copyOf(input, input.length);
+        final int selected = sorter.select(actual, k);
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+
+        Assertions.assertThat(selected)
+                .isEqualTo(expected[k]);
+        Assertions.assertThat(actual[k])
+                .isEqualTo(expected[k]);
+        for (int i = 0; i < actual.length; i++) {
+            if (i < k) {
+                Assertions.assertThat(actual[i]).isLessThanOrEqualTo(selected);
+            } else {
+                Assertions.assertThat(actual[i]).isGreaterThanOrEqualTo(selected);
+            }
+        }
+        Assertions.assertThat(actual)
+                .containsExactlyInAnyOrder(input);
+    }
+
+    @Test(dataProvider = "adversarialInputProvider")
+    public void testIntroSelectAdversarialInput(int[] input) {
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+        for (int k : new int[] {0, input.length / 3, input.length - 1}) {
+            Assertions.assertThat(new IntroSort().select(Arrays.copyOf(input, input.length), k))
+                    .isEqualTo(expected[k]);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSelectOutOfRange() {
+        new IntroSort().select(new int[3], 3);
+    }
+
+    @Test
+    public void testParallelMergeSortLargeInput() {
+        final int[] input = RANDOM.ints(1 << 20).toArray();
+        final int[] actual = Arrays.copyOf(input, input.length);
+        new ParallelMergeSort().sort(actual);
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    @DataProvider
+    private Object[][] radixInputProvider() {
+        return new Object[][] {
+                { RANDOM.ints(1 << 20).toArray() },
+                // Only the lowest digit varies, so the other two passes are skipped
+                { RANDOM.ints(1 << 20, 0, 2000).toArray() },
+                // Small values on both sides of zero still differ in every digit once the sign bit is flipped
+                { RANDOM.ints(1 << 20, -1000, 1000).toArray() },
+                // The lowest digit is always zero, so only the first pass is skipped
+                { RANDOM.ints(1 << 20, 0, 1 << 20).map(value -> value << 11).toArray() },
+        };
+    }
+
+    @Test(dataProvider = "radixInputProvider")
+    public void testRadixSortLargeInput(int[] input) {
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+        for (Sorter sorter : new Sorter[] {new RadixSort(), new RadixSort(ForkJoinPool.commonPool(), 1000)}) {
+            final int[] actual = Arrays.copyOf(input, input.length);
+            sorter.sort(actual);
+
+            Assertions.assertThat(actual)
+                    .isEqualTo(expected);
+        }
+    }
+
+    /**
+     * Public and static so that {@link PrimitiveSortTest} can sort these inputs too.
+     */
+    @DataProvider
+    public static Object[][] adversarialInputProvider() {
+        final int n = 1 << 20;
+        final int[] sorted = new int[n];
+        final int[] reversed = new int[n];
+        final int[] organPipe = new int[n];
+        final int[] sawtooth = new int[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+            reversed[i] = n - i;
+            organPipe[i] = Math.min(i, n - i);
+            sawtooth[i] = i % 1000;
+        }
+        return new Object[][] {
+                { sorted },
+                { reversed },
+                { organPipe },
+                { sawtooth },
+                { new int[n] },
+                { RANDOM.ints(n, 0, 4).toArray() },
+        };
+    }
+
+    @Test(dataProvider = "adversarialInputProvider")
+    public void testIntroSortAdversarialInput(int[] input) {
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+        for (Sorter sorter : new Sorter[] {new IntroSort(), new IntroSort(0)}) {
+            final int[] actual = Arrays.copyOf(input, input.length);
+            sorter.sort(actual);
+
+            Assertions.assertThat(actual)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test(dataProvider = "adversarialInputProvider")
+    public void testNaturalMergeSortAdversarialInput(int[] input) {
+        final int[] actual = Arrays.copyOf(input, input.length);
+        new NaturalMergeSort().sort(actual);
+        final int[] expected = Arrays.copyOf(input, input.length);
+        Arrays.sort(expected);
+
+        Assertions.assertThat(actual)
+                .isEqualTo(expected);
+    }
+
+    @Test(invocationCount = 10)
+    public void testNaturalMergeSortPresortedRuns() {
+        // Timestamps appended mostly in order:  a few late arrivals, and some ascending and descending runs of
+        // arbitrary values, of lengths from one to thousands, so that merges gallop from both ends
+        final int n = RANDOM.nextInt(200_000);
+        final int[] input = new int[n];
+        int i = 0;
+        while (i < n) {
+            final int end = Math.min(n, i + 1 + RANDOM.nextInt(RANDOM.nextBoolean() ? 10 : 5_000));
+            final int kind = RANDOM.nextInt(4);
+            for (int j = i; j < end; j++) {
+                if (kind == 0) {
+                    input[j] = RANDOM.nextInt(1_000);
+                } else if (kind == 1) {
+                    input[j] = end - j;
+                } else {
+                    input[j] = RANDOM.nextInt(100) == 0 ? j - RANDOM.nextInt(1_000) : j;
+                }
+            }
+            i = end;
+        }
+        final int[] actual = Arrays.copyOf(input, n);
+        final int from = n == 0 ? 0 : RANDOM.nextInt(n);
+        final int to = from + RANDOM.nextInt(n - from + 1);
+        new NaturalMergeSort().sort(actual, from, to);
+        final int[] expected = Arrays.copyOf(input, n);
+        Arrays.sort(expected, from, to);
 
         Assertions.assertThat(actual)
                 .isEqualTo(expected);
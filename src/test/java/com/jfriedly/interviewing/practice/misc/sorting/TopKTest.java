@@ -0,0 +1,54 @@
+package com.jfriedly.interviewing.practice.misc.sorting;
+
+import org.assertj.core.api.Assertions;
+import org.testng.annotations.Test;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+public class TopKTest {
+
+    private static final Random RANDOM = new Random();
+
+    @Test(invocationCount = 10)
+    public void testStreamingSmallestK() {
+        final int[] input = RANDOM.ints(RANDOM.nextInt(100_000), -1000, 1000).toArray();
+        final int k = RANDOM.nextInt(100);
+        final int[] sorted = Arrays.copyOf(input, input.length);
+        Arrays.sort(sorted);
+        final int[] expected = Arrays.copyOf(sorted, Math.min(k, input.length));
+
+        Assertions.assertThat(TopK.smallestK(Arrays.stream(input).parallel(), k))
+                .isEqualTo(expected);
+        Assertions.assertThat(TopK.smallestK(Arrays.stream(input).iterator(), k))
+                .isEqualTo(expected);
+        final IntBuffer buffer = IntBuffer.wrap(input);
+        Assertions.assertThat(TopK.smallestK(buffer, k))
+                .isEqualTo(expected);
+        Assertions.assertThat(buffer.position())
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void testMergingTopK() {
+        final TopK first = new TopK(3);
+        final TopK second = new TopK(3);
+        for (int value : new int[] {9, 4, 7, 1}) {
+            first.add(value);
+        }
+        second.add(5);
+        second.add(2);
+        first.addAll(second);
+
+        Assertions.assertThat(first.size())
+                .isEqualTo(3);
+        Assertions.assertThat(first.toSortedArray())
+                .containsExactly(1, 2, 4);
+        Assertions.assertThat(second.toSortedArray())
+                .containsExactly(2, 5);
+        Assertions.assertThat(TopK.smallestK(IntStream.range(0, 10), 0))
+                .isEmpty();
+    }
+}
@@ -0,0 +1,142 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class DistanceProviderTest {
+
+    // Floats keep about seven significant digits, and the points are all within 1000 of each other
+    private static final Offset<Double> FLOAT_PRECISION = Offset.offset(1e-3);
+
+    private static double[][] randomPoints(int n, long seed) {
+        final Random random = new Random(seed);
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * 1000;
+            y[i] = random.nextDouble() * 1000;
+        }
+        return new double[][] {x, y};
+    }
+
+    private static void assertSameDistances(DistanceProvider actual, DistanceProvider expected) {
+        Assertions.assertThat(actual.size())
+                .isEqualTo(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (int j = 0; j < expected.size(); j++) {
+                Assertions.assertThat(actual.distance(i, j))
+                        .isCloseTo(expected.distance(i, j), FLOAT_PRECISION);
+            }
+        }
+    }
+
+    @Test
+    public void testEuclideanDistances() {
+        final DistanceProvider distances = new EuclideanDistances(new double[] {0, 3, 3}, new double[] {0, 0, 4});
+        Assertions.assertThat(distances.size())
+                .isEqualTo(3);
+        Assertions.assertThat(distances.distance(0, 2))
+                .isEqualTo(5);
+        Assertions.assertThat(distances.length(new int[] {0, 1, 2}))
+                .isEqualTo(12);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEuclideanDistancesRejectMismatchedCoordinates() {
+        new EuclideanDistances(new double[2], new double[3]);
+    }
+
+    @DataProvider
+    public Object[][] sizeProvider() {
+        return new Object[][] {
+                {0},
+                {1},
+                {2},
+                {57},
+        };
+    }
+
+    @Test(dataProvider = "sizeProvider")
+    public void testTriangularMatrixMatchesCoordinates(int n) {
+        final double[][] points = randomPoints(n, n);
+        final DistanceProvider expected = new EuclideanDistances(points[0], points[1]);
+        assertSameDistances(new TriangularDistanceMatrix(expected), expected);
+    }
+
+    @Test(dataProvider = "sizeProvider")
+    public void testMappedMatrixRoundTrips(int n) throws IOException {
+        final double[][] points = randomPoints(n, n);
+        final DistanceProvider expected = new EuclideanDistances(points[0], points[1]);
+        final Path path = Files.createTempFile("distances", ".bin");
+        try {
+            // Eight entries per chunk, so that most rows cross from one mapping into the next
+            assertSameDistances(MappedDistanceMatrix.create(path, expected, 3), expected);
+            assertSameDistances(MappedDistanceMatrix.open(path, 3), expected);
+            assertSameDistances(MappedDistanceMatrix.open(path), expected);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testMappedMatrixRejectsOtherFiles() throws IOException {
+        final Path path = Files.createTempFile("distances", ".bin");
+        try {
+            Files.write(path, "NAME: not a matrix".getBytes(StandardCharsets.US_ASCII));
+            Assertions.assertThatThrownBy(() -> MappedDistanceMatrix.open(path))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testMappedMatrixRejectsTruncatedFiles() throws IOException {
+        final double[][] points = randomPoints(10, 10);
+        final Path path = Files.createTempFile("distances", ".bin");
+        try {
+            MappedDistanceMatrix.create(path, new EuclideanDistances(points[0], points[1]));
+            final byte[] contents = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(contents, contents.length - 4));
+            Assertions.assertThatThrownBy(() -> MappedDistanceMatrix.open(path))
+                    .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @DataProvider
+    public Object[][] solverProvider() {
+        return new Object[][] {
+                {new OptimalTSPSolver(), 8},
+                {new HeldKarpTSPSolver(), 12},
+                {new ParallelBranchAndBoundTSPSolver(), 12},
+                {new NearestNeighborTSPSolver(), 200},
+                {new ClosestPairTSPSolver(), 200},
+        };
+    }
+
+    @Test(dataProvider = "solverProvider")
+    public void testSolversAgreeOnPrecomputedDistances(DistanceTSPSolver solver, int n) {
+        final double[][] points = randomPoints(n, 17);
+        final DistanceProvider exact = new EuclideanDistances(points[0], points[1]);
+        final int[] tour = solver.findTour(new TriangularDistanceMatrix(exact));
+        final int[] expected = new int[n];
+        for (int i = 0; i < n; i++) {
+            expected[i] = i;
+        }
+        Assertions.assertThat(tour)
+                .containsExactlyInAnyOrder(expected);
+        Assertions.assertThat(exact.length(tour))
+                .isCloseTo(exact.length(solver.findTour(points[0], points[1])), Offset.offset(n * 1e-3));
+    }
+}
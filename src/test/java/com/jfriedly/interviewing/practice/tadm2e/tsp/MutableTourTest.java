@@ -0,0 +1,164 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import org.assertj.core.api.Assertions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MutableTourTest {
+
+    private static final Random RANDOM = new Random();
+    private static final double LENGTH_TOLERANCE = 1e-6;
+
+    @DataProvider
+    public Object[][] maxMovesProvider() {
+        return new Object[][] {
+                { 0 },
+                { 1 },
+                { MutableTour.DEFAULT_MAX_MOVES },
+        };
+    }
+
+    /**
+     * Applies a random mix of insertions and removals, and checks after each one that the tour visits exactly the
+     * points that are left and that its length is kept up to date.
+     */
+    @Test(dataProvider = "maxMovesProvider", invocationCount = 5)
+    public void testRandomUpdates(int maxMoves) {
+        final int n = 100;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+        final MutableTour tour = new MutableTour(x, y, new GreedyEdgeTSPSolver().findTour(x, y), maxMoves);
+        final List<Integer> ids = new ArrayList<>();
+        final List<double[]> coordinates = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add(i);
+            coordinates.add(new double[] { x[i], y[i] });
+        }
+
+        for (int round = 0; round < 1000; round++) {
+            if (ids.isEmpty() || RANDOM.nextBoolean()) {
+                final double[] point = { RANDOM.nextDouble(), RANDOM.nextDouble() };
+                ids.add(tour.insert(point[0], point[1]));
+                coordinates.add(point);
+            } else {
+                final int removed = RANDOM.nextInt(ids.size());
+                tour.remove(ids.get(removed));
+                ids.remove(removed);
+                coordinates.remove(removed);
+            }
+
+            final int[] order = tour.toArray();
+            Assertions.assertThat(order)
+                    .containsExactlyInAnyOrder(ids.stream().mapToInt(Integer::intValue).toArray());
+            Assertions.assertThat(tour.length())
+                    .isCloseTo(tour.toPolyline().calculateLength2D(), Assertions.within(LENGTH_TOLERANCE));
+            for (int i = 0; i < order.length; i++) {
+                Assertions.assertThat(tour.next(order[i]))
+                        .isEqualTo(order[(i + 1) % order.length]);
+                Assertions.assertThat(tour.previous(order[(i + 1) % order.length]))
+                        .isEqualTo(order[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testInsertsBetweenNearestPoints() {
+        // A unit square, plus a point just outside the middle of its right side
+        final double[] x = { 0, 1, 1, 0 };
+        final double[] y = { 0, 0, 1, 1 };
+        final MutableTour tour = new MutableTour(x, y, new int[] { 0, 1, 2, 3 }, 0);
+
+        final int id = tour.insert(1.1, 0.5);
+        Assertions.assertThat(id)
+                .isEqualTo(4);
+        Assertions.assertThat(tour.previous(id))
+                .isEqualTo(1);
+        Assertions.assertThat(tour.next(id))
+                .isEqualTo(2);
+        Assertions.assertThat(tour.length())
+                .isCloseTo(3 + 2 * Math.hypot(0.1, 0.5), Assertions.within(LENGTH_TOLERANCE));
+    }
+
+    @Test
+    public void testRepairAfterInsertion() {
+        // Points along a line, visited in an order that doubles back.  Inserting another point nearby sets off a
+        // repair that straightens the rest out.
+        final double[] x = { 0, 2, 1, 3, 4, 5 };
+        final double[] y = { 0, 0, 0, 0, 0, 0 };
+        final MutableTour tour = new MutableTour(x, y, new int[] { 0, 2, 1, 3, 4, 5 }, MutableTour.DEFAULT_MAX_MOVES);
+
+        tour.insert(2.5, 0);
+        Assertions.assertThat(tour.length())
+                .isCloseTo(10, Assertions.within(LENGTH_TOLERANCE));
+    }
+
+    @Test
+    public void testGrowFromEmpty() {
+        final MutableTour tour = new MutableTour();
+        Assertions.assertThat(tour.toArray())
+                .isEmpty();
+        final int first = tour.insert(0, 0);
+        Assertions.assertThat(tour.length())
+                .isEqualTo(0);
+        final int second = tour.insert(3, 4);
+        Assertions.assertThat(tour.length())
+                .isEqualTo(10);
+        tour.remove(first);
+        Assertions.assertThat(tour.toArray())
+                .containsExactly(second);
+        Assertions.assertThat(tour.length())
+                .isCloseTo(0, Assertions.within(LENGTH_TOLERANCE));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRemoveMissingPoint() {
+        final MutableTour tour = new MutableTour();
+        final int id = tour.insert(0, 0);
+        tour.remove(id);
+        tour.remove(id);
+    }
+
+    @Test(invocationCount = 10)
+    public void testKdForestMatchesLinearScan() {
+        final KdForest forest = new KdForest();
+        final List<double[]> points = new ArrayList<>();
+        final List<Integer> ids = new ArrayList<>();
+        final int k = 5;
+        final int[] neighbors = new int[k];
+        for (int round = 0; round < 500; round++) {
+            if (ids.isEmpty() || RANDOM.nextInt(3) > 0) {
+                final double[] point = { RANDOM.nextInt(50), RANDOM.nextInt(50) };
+                forest.add(round, point[0], point[1]);
+                ids.add(round);
+                points.add(point);
+            } else {
+                final int removed = RANDOM.nextInt(ids.size());
+                forest.remove(ids.get(removed));
+                ids.remove(removed);
+                points.remove(removed);
+            }
+
+            final double qx = RANDOM.nextInt(50);
+            final double qy = RANDOM.nextInt(50);
+            final int count = forest.nearest(qx, qy, k, neighbors);
+            final List<Integer> expected = new ArrayList<>(ids);
+            expected.sort((a, b) -> {
+                final double[] pa = points.get(ids.indexOf(a));
+                final double[] pb = points.get(ids.indexOf(b));
+                final double da = (pa[0] - qx) * (pa[0] - qx) + (pa[1] - qy) * (pa[1] - qy);
+                final double db = (pb[0] - qx) * (pb[0] - qx) + (pb[1] - qy) * (pb[1] - qy);
+                return da != db ? Double.compare(da, db) : Integer.compare(a, b);
+            });
+            Assertions.assertThat(count)
+                    .isEqualTo(Math.min(k, ids.size()));
+            for (int i = 0; i < count; i++) {
+                Assertions.assertThat(neighbors[i])
+                        .isEqualTo(expected.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import org.assertj.core.api.Assertions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class TSPLibTest {
+
+    // A 3 by 4 rectangle plus its center, with the points listed out of order
+    private static final String RECTANGLE = String.join("\n",
+            "NAME: rectangle5",
+            "COMMENT : a 3 by 4 rectangle and its center",
+            "TYPE : TSP",
+            "DIMENSION : 5",
+            "EDGE_WEIGHT_TYPE : EUC_2D",
+            "NODE_COORD_SECTION",
+            "2 3 0",
+            "1 0 0",
+            "5 1.5e0 2",
+            "3 3 4",
+            "4 0 4",
+            "EOF",
+            "");
+
+    private static TSPLib.Instance read(String contents) throws IOException {
+        return TSPLib.read(new BufferedReader(new StringReader(contents)));
+    }
+
+    @Test
+    public void testReadsCoordinates() throws IOException {
+        final TSPLib.Instance instance = read(RECTANGLE);
+        Assertions.assertThat(instance.getName())
+                .isEqualTo("rectangle5");
+        Assertions.assertThat(instance.size())
+                .isEqualTo(5);
+        Assertions.assertThat(instance.getX())
+                .containsExactly(0, 3, 3, 0, 1.5);
+        Assertions.assertThat(instance.getY())
+                .containsExactly(0, 0, 4, 4, 2);
+    }
+
+    @Test
+    public void testReadsFiles() throws IOException {
+        final Path path = Files.createTempFile("rectangle5", ".tsp");
+        try {
+            Files.write(path, RECTANGLE.getBytes(StandardCharsets.US_ASCII));
+            Assertions.assertThat(TSPLib.read(path).getX())
+                    .containsExactly(0, 3, 3, 0, 1.5);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testRoundsEdgesLikeTSPLib() throws IOException {
+        final TSPLib.Instance instance = read(RECTANGLE);
+        Assertions.assertThat(instance.length(new int[] { 0, 1, 2, 3, 4 }))
+                .isEqualTo(3 + 4 + 3 + 3 + 3);
+        // Both edges to the center are 2.5 long, which rounds up
+        Assertions.assertThat(instance.length(new int[] { 0, 1, 4, 2, 3 }))
+                .isEqualTo(3 + 3 + 3 + 3 + 4);
+    }
+
+    @DataProvider
+    public Object[][] malformedProvider() {
+        return new Object[][] {
+                { "TYPE : ATSP\nDIMENSION : 1\nNODE_COORD_SECTION\n1 0 0\n" },
+                { "EDGE_WEIGHT_TYPE : GEO\nDIMENSION : 1\nNODE_COORD_SECTION\n1 0 0\n" },
+                { "DIMENSION : two\nNODE_COORD_SECTION\n1 0 0\n" },
+                { "NODE_COORD_SECTION\n1 0 0\n" },
+                { "DIMENSION : 2\n" },
+                { "DIMENSION : 2\nNODE_COORD_SECTION\n1 0 0\n" },
+                { "DIMENSION : 2\nNODE_COORD_SECTION\n1 0 0\n1 1 1\n" },
+                { "DIMENSION : 2\nNODE_COORD_SECTION\n1 0 0\n3 1 1\n" },
+                { "DIMENSION : 2\nNODE_COORD_SECTION\n1 0 0\n2 1\n" },
+                { "DIMENSION : 1\nEDGE_WEIGHT_SECTION\n0\n" },
+        };
+    }
+
+    @Test(dataProvider = "malformedProvider", expectedExceptions = IllegalArgumentException.class)
+    public void testRejectsMalformedInstances(String contents) throws IOException {
+        read(contents);
+    }
+
+    @Test
+    public void testBenchmarkMeasuresGap() throws IOException {
+        final TSPBenchmark.Result result = TSPBenchmark.measure("Optimal", new OptimalTSPSolver(), read(RECTANGLE),
+                16, 1, 3);
+        Assertions.assertThat(result.getLength())
+                .isEqualTo(16);
+        Assertions.assertThat(result.getGap())
+                .isEqualTo(0);
+        Assertions.assertThat(result.getMinNanos())
+                .isPositive()
+                .isLessThanOrEqualTo(result.getMeanNanos());
+        Assertions.assertThat(result.getAllocatedBytes())
+                .isGreaterThanOrEqualTo(-1);
+    }
+
+    @Test
+    public void testBenchmarkSkipsSolversThatCantHandleTheSize() throws IOException {
+        Assertions.assertThat(TSPBenchmark.run(read(RECTANGLE), 16, 0, 1))
+                .extracting(TSPBenchmark.Result::getSolver)
+                .contains("Optimal", "HeldKarp", "LinKernighan");
+        final double[] coordinates = new double[1000];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = i;
+        }
+        final TSPLib.Instance line = new TSPLib.Instance("line1000", coordinates, coordinates);
+        Assertions.assertThat(TSPBenchmark.run(line, Double.NaN, 0, 1))
+                .extracting(TSPBenchmark.Result::getSolver)
+                .doesNotContain("Optimal", "HeldKarp", "BranchAndBound", "ClosestPair")
+                .contains("GreedyEdge", "HilbertCurve");
+    }
+}
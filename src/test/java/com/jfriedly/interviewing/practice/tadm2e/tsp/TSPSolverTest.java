@@ -7,7 +7,13 @@ import org.slf4j.LoggerFactory;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 public class TSPSolverTest {
 
@@ -15,6 +21,11 @@ public class TSPSolverTest {
     private static final Random RANDOM = new Random();
     // I don't know what this should be, so I'm just using the first one
     private static final SpatialReference SPATIAL_REFERENCE = SpatialReference.create(1);
+    private static final double LENGTH_TOLERANCE = 1e-9;
+    private static final long DEADLINE_MILLIS = 200;
+    // Only catches solvers that keep searching long after their deadline.  Timing them any tighter than this would
+    // fail on a busy machine.
+    private static final long STOP_BOUND_MILLIS = 10_000;
 
     @DataProvider
     public Object[][] staticInputProvider() {
@@ -60,15 +71,60 @@ public class TSPSolverTest {
                 { new NearestNeighborTSPSolver(), nearestNeighborPathologicalInput, 84 },
                 { new NearestNeighborTSPSolver(), closestPairPathologicalInput, 7.276972864800943 },
 
+                { new KdTreeNearestNeighborTSPSolver(), trivialInput, 3.414213562373095 },
+                { new KdTreeNearestNeighborTSPSolver(), optimalInput, 31.31370849898476 },
+                { new KdTreeNearestNeighborTSPSolver(), nearestNeighborPathologicalInput, 84 },
+                { new KdTreeNearestNeighborTSPSolver(), closestPairPathologicalInput, 7.276972864800943 },
+
                 { new ClosestPairTSPSolver(), trivialInput, 3.414213562373095 },
                 { new ClosestPairTSPSolver(), optimalInput, 31.31370849898476 },
                 { new ClosestPairTSPSolver(), nearestNeighborPathologicalInput, 64 },
                 { new ClosestPairTSPSolver(), closestPairPathologicalInput, 7.276972864800943 },
 
+                { new GreedyEdgeTSPSolver(), trivialInput, 3.414213562373095 },
+                { new GreedyEdgeTSPSolver(), optimalInput, 31.31370849898476 },
+                { new GreedyEdgeTSPSolver(), nearestNeighborPathologicalInput, 64 },
+                { new GreedyEdgeTSPSolver(), closestPairPathologicalInput, 7.276972864800943 },
+
                 { new OptimalTSPSolver(), trivialInput, 3.414213562373095 },
                 { new OptimalTSPSolver(), optimalInput, 31.31370849898476 },
                 { new OptimalTSPSolver(), nearestNeighborPathologicalInput, 64 },
                 { new OptimalTSPSolver(), closestPairPathologicalInput, 6.2 },
+
+                { new HeldKarpTSPSolver(), trivialInput, 3.414213562373095 },
+                { new HeldKarpTSPSolver(), optimalInput, 31.31370849898476 },
+                { new HeldKarpTSPSolver(), nearestNeighborPathologicalInput, 64 },
+                { new HeldKarpTSPSolver(), closestPairPathologicalInput, 6.2 },
+
+                { new ParallelBranchAndBoundTSPSolver(), trivialInput, 3.414213562373095 },
+                { new ParallelBranchAndBoundTSPSolver(), optimalInput, 31.31370849898476 },
+                { new ParallelBranchAndBoundTSPSolver(), nearestNeighborPathologicalInput, 64 },
+                { new ParallelBranchAndBoundTSPSolver(), closestPairPathologicalInput, 6.2 },
+
+                { new LocalSearchTSPSolver(), trivialInput, 3.414213562373095 },
+                { new LocalSearchTSPSolver(), optimalInput, 31.31370849898476 },
+                { new LocalSearchTSPSolver(), nearestNeighborPathologicalInput, 64 },
+                { new LocalSearchTSPSolver(), closestPairPathologicalInput, 6.2 },
+
+                { new LinKernighanTSPSolver(100), trivialInput, 3.414213562373095 },
+                { new LinKernighanTSPSolver(100), optimalInput, 31.31370849898476 },
+                { new LinKernighanTSPSolver(100), nearestNeighborPathologicalInput, 64 },
+                { new LinKernighanTSPSolver(100), closestPairPathologicalInput, 6.2 },
+
+                { new MinimumSpanningTreeTSPSolver(), trivialInput, 3.414213562373095 },
+                { new MinimumSpanningTreeTSPSolver(), optimalInput, 40.48528137423857 },
+                { new MinimumSpanningTreeTSPSolver(), nearestNeighborPathologicalInput, 64 },
+                { new MinimumSpanningTreeTSPSolver(), closestPairPathologicalInput, 7.276972864800943 },
+
+                { new MinimumSpanningTreeTSPSolver(true), trivialInput, 3.414213562373095 },
+                { new MinimumSpanningTreeTSPSolver(true), optimalInput, 31.31370849898476 },
+                { new MinimumSpanningTreeTSPSolver(true), nearestNeighborPathologicalInput, 64 },
+                { new MinimumSpanningTreeTSPSolver(true), closestPairPathologicalInput, 7.276972864800943 },
+
+                { new HilbertCurveTSPSolver(), trivialInput, 3.414213562373095 },
+                { new HilbertCurveTSPSolver(), optimalInput, 39.96281913965828 },
+                { new HilbertCurveTSPSolver(), nearestNeighborPathologicalInput, 64 },
+                { new HilbertCurveTSPSolver(), closestPairPathologicalInput, 8.4 },
         };
     }
 
@@ -77,9 +133,339 @@ public class TSPSolverTest {
         return new Object[][] {
                 { new OptimalTSPSolver(), new NearestNeighborTSPSolver() },
                 { new OptimalTSPSolver(), new ClosestPairTSPSolver() },
+                { new OptimalTSPSolver(), new KdTreeNearestNeighborTSPSolver() },
+                { new OptimalTSPSolver(), new GreedyEdgeTSPSolver(3) },
+                { new HeldKarpTSPSolver(), new OptimalTSPSolver() },
+                { new OptimalTSPSolver(), new HeldKarpTSPSolver() },
+                { new OptimalTSPSolver(), new HeldKarpTSPSolver(true) },
+                { new HeldKarpTSPSolver(), new ParallelBranchAndBoundTSPSolver() },
+                { new ParallelBranchAndBoundTSPSolver(), new HeldKarpTSPSolver() },
+                { new OptimalTSPSolver(), new LocalSearchTSPSolver() },
+                { new OptimalTSPSolver(), new LocalSearchTSPSolver(new ClosestPairTSPSolver()) },
+                { new OptimalTSPSolver(), new LinKernighanTSPSolver(100) },
+                { new OptimalTSPSolver(), new MinimumSpanningTreeTSPSolver() },
+                { new OptimalTSPSolver(), new MinimumSpanningTreeTSPSolver(true, 3) },
+                { new OptimalTSPSolver(), new PartitioningTSPSolver(new LocalSearchTSPSolver(), 3,
+                        ForkJoinPool.commonPool()) },
         };
     }
 
+    @DataProvider
+    public Object[][] allSolversProvider() {
+        return new Object[][] {
+                { new NearestNeighborTSPSolver() },
+                { new KdTreeNearestNeighborTSPSolver() },
+                { new ClosestPairTSPSolver() },
+                { new OptimalTSPSolver() },
+                { new HeldKarpTSPSolver() },
+                { new HeldKarpTSPSolver(true) },
+                { new ParallelBranchAndBoundTSPSolver() },
+                { new LocalSearchTSPSolver() },
+                { new GreedyEdgeTSPSolver() },
+                { new GreedyEdgeTSPSolver(2) },
+                { new LinKernighanTSPSolver(100) },
+                { new MinimumSpanningTreeTSPSolver() },
+                { new MinimumSpanningTreeTSPSolver(true) },
+                { new HilbertCurveTSPSolver() },
+                { new PartitioningTSPSolver() },
+                { new PartitioningTSPSolver(new GreedyEdgeTSPSolver(), 2, ForkJoinPool.commonPool()) },
+        };
+    }
+
+    @Test(dataProvider = "allSolversProvider", invocationCount = 10)
+    public void testPrimitiveToursArePermutations(TSPSolver solver) {
+        final int n = RANDOM.nextInt(9);
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+
+        assertPermutation(solver.findTour(x, y), n);
+    }
+
+    @Test(invocationCount = 5)
+    public void testParallelHeldKarpMatchesSequential() {
+        final MultiPoint input = randomInput(14, 100);
+
+        final Polyline expected = new HeldKarpTSPSolver().findTour(input);
+        final Polyline actual = new HeldKarpTSPSolver(true).findTour(input);
+        Assertions.assertThat(actual.calculateLength2D())
+                .isEqualTo(expected.calculateLength2D());
+    }
+
+    @Test(invocationCount = 5)
+    public void testBranchAndBoundMatchesHeldKarp() {
+        final MultiPoint input = randomInput(14, 100);
+
+        final Polyline expected = new HeldKarpTSPSolver().findTour(input);
+        final Polyline actual = new ParallelBranchAndBoundTSPSolver().findTour(input);
+        Assertions.assertThat(actual.calculateLength2D())
+                .isCloseTo(expected.calculateLength2D(), Assertions.within(LENGTH_TOLERANCE));
+    }
+
+    @Test(invocationCount = 5)
+    public void testLocalSearchImprovesNearestNeighborTours() {
+        final int n = 2000;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+
+        final int[] nearestNeighborTour = new KdTreeNearestNeighborTSPSolver().findTour(x, y);
+        final int[] improvedTour = new LocalSearchTSPSolver().improve(x, y, nearestNeighborTour);
+        final double nearestNeighborLength = Tours.length(x, y, nearestNeighborTour);
+        final double improvedLength = Tours.length(x, y, improvedTour);
+        logger.info("Local search improved a nearest neighbor tour from {} to {}", nearestNeighborLength, improvedLength);
+        Assertions.assertThat(improvedTour)
+                .containsExactlyInAnyOrder(nearestNeighborTour);
+        // Nearest neighbor tours are typically 25% over optimal, and 2-opt plus Or-opt typically gets within 5-7%
+        Assertions.assertThat(improvedLength)
+                .isLessThan(0.9 * nearestNeighborLength);
+    }
+
+    @Test(invocationCount = 5)
+    public void testLinKernighanImprovesGreedyTours() {
+        final int n = 2000;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+
+        final int[] greedyTour = new GreedyEdgeTSPSolver().findTour(x, y);
+        final int[] improvedTour = new LinKernighanTSPSolver(500).findTour(x, y);
+        final double greedyLength = Tours.length(x, y, greedyTour);
+        final double improvedLength = Tours.length(x, y, improvedTour);
+        logger.info("Lin-Kernighan improved a greedy tour from {} to {}", greedyLength, improvedLength);
+        Assertions.assertThat(improvedTour)
+                .containsExactlyInAnyOrder(greedyTour);
+        // Greedy tours are typically 15-20% over optimal, and chained Lin-Kernighan typically gets within 2-5%
+        Assertions.assertThat(improvedLength)
+                .isLessThan(0.9 * greedyLength);
+    }
+
+    @DataProvider
+    public Object[][] anytimeProvider() {
+        return new Object[][] {
+                { new OptimalTSPSolver(), 40 },
+                { new ParallelBranchAndBoundTSPSolver(), 64 },
+                { new LocalSearchTSPSolver(), 10000 },
+                { new LinKernighanTSPSolver(), 5000 },
+        };
+    }
+
+    /**
+     * Each solver has to stop once the deadline passes and return a valid tour, having reported shorter and shorter
+     * tours that end with the one it returns.
+     */
+    @Test(dataProvider = "anytimeProvider", invocationCount = 3)
+    public void testAnytimeSolversStopAtDeadline(AnytimeTSPSolver solver, int n) {
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+        final List<int[]> tours = new ArrayList<>();
+        final List<Double> lengths = new ArrayList<>();
+
+        final long start = System.nanoTime();
+        final int[] tour = solver.findTour(x, y, Deadline.after(DEADLINE_MILLIS, TimeUnit.MILLISECONDS),
+                (improved, length) -> {
+                    tours.add(improved);
+                    lengths.add(length);
+                });
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("{} returned a tour of length {} after {} ms and {} improvements",
+                solver.getClass().getSimpleName(), Tours.length(x, y, tour), elapsedMillis, tours.size());
+        Assertions.assertThat(elapsedMillis)
+                .isLessThan(STOP_BOUND_MILLIS);
+        assertPermutation(tour, n);
+        Assertions.assertThat(tours)
+                .isNotEmpty();
+        Assertions.assertThat(tours.get(tours.size() - 1))
+                .containsExactly(tour);
+        for (int i = 0; i < tours.size(); i++) {
+            Assertions.assertThat(lengths.get(i))
+                    .isCloseTo(Tours.length(x, y, tours.get(i)), Assertions.withinPercentage(1e-6));
+            if (i > 0) {
+                Assertions.assertThat(lengths.get(i))
+                        .isLessThan(lengths.get(i - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testCancelledSearchReturnsStartingTour() {
+        final int n = 1000;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+        final int[] nearestNeighborTour = new KdTreeNearestNeighborTSPSolver().findTour(x, y);
+        final Deadline deadline = Deadline.none();
+        Assertions.assertThat(deadline.isExpired())
+                .isFalse();
+        deadline.cancel();
+        Assertions.assertThat(deadline.isExpired())
+                .isTrue();
+        Assertions.assertThat(deadline.remainingNanos())
+                .isZero();
+
+        Assertions.assertThat(new LocalSearchTSPSolver().improve(x, y, nearestNeighborTour, deadline,
+                TourListener.NONE))
+                .containsExactly(nearestNeighborTour);
+        // Optimal starts from the points in index order
+        Assertions.assertThat(new OptimalTSPSolver().findTour(x, y, deadline))
+                .isSorted();
+    }
+
+    @Test(invocationCount = 3)
+    public void testPartitioningStaysCloseToDelegate() {
+        final int n = 20000;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+        final TSPSolver delegate = new LocalSearchTSPSolver(new GreedyEdgeTSPSolver());
+
+        final int[] wholeTour = delegate.findTour(x, y);
+        final int[] partitionedTour = new PartitioningTSPSolver(delegate, 1000, ForkJoinPool.commonPool())
+                .findTour(x, y);
+        final double wholeLength = Tours.length(x, y, wholeTour);
+        final double partitionedLength = Tours.length(x, y, partitionedTour);
+        logger.info("Partitioning into regions of 1000 points changed the tour length from {} to {}", wholeLength,
+                partitionedLength);
+        Assertions.assertThat(partitionedTour)
+                .containsExactlyInAnyOrder(wholeTour);
+        // The seams typically cost well under 1% once they're repaired
+        Assertions.assertThat(partitionedLength)
+                .isLessThan(1.02 * wholeLength);
+    }
+
+    /**
+     * The k-d tree only changes how each nearest neighbor is found, not which one is chosen, so it should always
+     * produce exactly the same tour as the linear scan.
+     */
+    @Test(invocationCount = 10)
+    public void testKdTreeNearestNeighborMatchesLinearScan() {
+        final MultiPoint input = randomInput(200, 1000);
+
+        final Polyline expected = new NearestNeighborTSPSolver().findTour(input);
+        final Polyline actual = new KdTreeNearestNeighborTSPSolver().findTour(input);
+        Assertions.assertThat(actual.calculateLength2D())
+                .isEqualTo(expected.calculateLength2D());
+    }
+
+    /**
+     * With candidate lists long enough to hold every other point, the greedy edge heuristic considers exactly the
+     * same pairs in exactly the same order as the closest pair heuristic.
+     */
+    @Test(invocationCount = 10)
+    public void testGreedyEdgeMatchesClosestPair() {
+        final MultiPoint input = randomInput(60, 1000);
+
+        final Polyline expected = new ClosestPairTSPSolver().findTour(input);
+        final Polyline actual = new GreedyEdgeTSPSolver(input.getPointCount() - 1).findTour(input);
+        Assertions.assertThat(actual.calculateLength2D())
+                .isEqualTo(expected.calculateLength2D());
+    }
+
+    /**
+     * Short candidate lists on clustered points leave most clusters disconnected from each other, which makes the
+     * spanning tree fall back on k-d tree searches.  Either way, its weight has to match Prim's algorithm.
+     */
+    @Test(invocationCount = 10)
+    public void testMinimumSpanningTreeMatchesPrim() {
+        final int n = 300;
+        final double[] x = new double[n];
+        final double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            final int cluster = RANDOM.nextInt(6);
+            x[i] = 100 * cluster + RANDOM.nextDouble();
+            y[i] = 100 * (cluster % 2) + RANDOM.nextDouble();
+        }
+
+        for (int k : new int[] { 1, 3, 10 }) {
+            final int[] edges = MinimumSpanningTreeTSPSolver.minimumSpanningTree(x, y, k);
+            double weight = 0;
+            for (int i = 0; i < edges.length; i += 2) {
+                weight += Tours.distance(x, y, edges[i], edges[i + 1]);
+            }
+            Assertions.assertThat(weight)
+                    .isCloseTo(primWeight(x, y), Assertions.within(LENGTH_TOLERANCE));
+        }
+    }
+
+    /**
+     * The double tree tour is never more than twice as long as the optimal one.
+     */
+    @Test(invocationCount = 10)
+    public void testMinimumSpanningTreeApproximationBound() {
+        final MultiPoint input = randomInput(12, 100);
+
+        final Polyline optimal = new HeldKarpTSPSolver().findTour(input);
+        final Polyline actual = new MinimumSpanningTreeTSPSolver().findTour(input);
+        Assertions.assertThat(actual.calculateLength2D())
+                .isLessThanOrEqualTo(2 * optimal.calculateLength2D() + LENGTH_TOLERANCE);
+    }
+
+    @Test(timeOut = 10000)
+    public void testMinimumSpanningTreeLargeInput() {
+        final int n = 200000;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+
+        for (boolean matching : new boolean[] { false, true }) {
+            assertPermutation(new MinimumSpanningTreeTSPSolver(matching).findTour(x, y), n);
+        }
+    }
+
+    /**
+     * Checks the Hilbert curve positions against the usual bit-by-bit definition, which rotates and reflects the
+     * remaining coordinates after each quadrant is picked.
+     */
+    @Test
+    public void testHilbertIndexMatchesIterativeDefinition() {
+        for (int i = 0; i < 100000; i++) {
+            int x = RANDOM.nextInt(1 << 16);
+            int y = RANDOM.nextInt(1 << 16);
+            final int actual = HilbertCurveTSPSolver.hilbertIndex(x, y);
+            long expected = 0;
+            for (int s = 1 << 15; s > 0; s >>= 1) {
+                final int rx = (x & s) > 0 ? 1 : 0;
+                final int ry = (y & s) > 0 ? 1 : 0;
+                expected += (long) s * s * ((3 * rx) ^ ry);
+                if (ry == 0) {
+                    if (rx == 1) {
+                        x = s - 1 - x;
+                        y = s - 1 - y;
+                    }
+                    final int temp = x;
+                    x = y;
+                    y = temp;
+                }
+            }
+            Assertions.assertThat(actual & 0xFFFFFFFFL)
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testHilbertCurveLargeInput() {
+        final int n = 1000000;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+
+        assertPermutation(new HilbertCurveTSPSolver().findTour(x, y), n);
+    }
+
+    @Test(timeOut = 10000)
+    public void testGreedyEdgeLargeInput() {
+        final int n = 200000;
+        final double[] x = RANDOM.doubles(n).toArray();
+        final double[] y = RANDOM.doubles(n).toArray();
+
+        assertPermutation(new GreedyEdgeTSPSolver().findTour(x, y), n);
+    }
+
+    @Test(timeOut = 10000)
+    public void testKdTreeNearestNeighborLargeInput() {
+        final MultiPoint input = new MultiPoint();
+        for (int i = 0; i < 100000; i++) {
+            input.add(RANDOM.nextDouble(), RANDOM.nextDouble());
+        }
+
+        final Polyline tour = new KdTreeNearestNeighborTSPSolver().findTour(input);
+        Assertions.assertThat(tour.getPointCount())
+                .isEqualTo(input.getPointCount());
+    }
+
     @Test(dataProvider = "staticInputProvider")
     public void testStaticInputs(TSPSolver solver, MultiPoint input, double expectedDistance) {
         final Polyline tour = solver.findTour(input);
@@ -91,10 +477,107 @@ public class TSPSolverTest {
 
     @Test(dataProvider = "implProvider", invocationCount = 10)
     public void testRandomInputsAgainstOptimalTSP(TSPSolver referenceSolver, TSPSolver testSolver) {
+        final MultiPoint input = randomInput(8, 10);
+        logger.debug("Random input:  {}", input);
+
+        final Polyline actualTour = testSolver.findTour(input);
+        final Polyline referenceTour = referenceSolver.findTour(input);
+        logger.info("{} test tour {}:  {}", testSolver.getClass().getSimpleName(), actualTour.calculateLength2D(), actualTour);
+        logger.info("{} reference tour {}:  {}", referenceSolver.getClass().getSimpleName(), referenceTour.calculateLength2D(), referenceTour);
+        // Equally short tours can differ in the last bit depending on which point the length was summed from
+        Assertions.assertThat(actualTour.calculateLength2D())
+                .isGreaterThanOrEqualTo(referenceTour.calculateLength2D() - LENGTH_TOLERANCE);
+    }
+
+    @Test
+    public void testBatchMatchesOneAtATime() {
+        final List<MultiPoint> inputs = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            inputs.add(randomInput(4 + i % 12, 1000));
+        }
+        // Branch and bound forks onto the same pool, so batch tasks get stolen onto threads that are mid-solve
+        final TSPSolver solver = new ParallelBranchAndBoundTSPSolver();
+        final List<Polyline> tours = new BatchTSPSolver(solver).findTours(inputs);
+        final List<CompletableFuture<Polyline>> futures = new BatchTSPSolver(solver).submit(inputs);
+        Assertions.assertThat(tours)
+                .hasSize(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            final double expected = solver.findTour(inputs.get(i)).calculateLength2D();
+            Assertions.assertThat(tours.get(i).getPointCount())
+                    .isEqualTo(inputs.get(i).getPointCount());
+            Assertions.assertThat(tours.get(i).calculateLength2D())
+                    .isCloseTo(expected, Assertions.within(LENGTH_TOLERANCE));
+            Assertions.assertThat(futures.get(i).join().calculateLength2D())
+                    .isCloseTo(expected, Assertions.within(LENGTH_TOLERANCE));
+        }
+    }
+
+    @Test
+    public void testBatchOfPrimitiveInstances() {
+        final double[][] x = new double[100][];
+        final double[][] y = new double[100][];
+        for (int k = 0; k < x.length; k++) {
+            x[k] = RANDOM.doubles(k % 30).toArray();
+            y[k] = RANDOM.doubles(k % 30).toArray();
+        }
+        final TSPSolver solver = new LocalSearchTSPSolver();
+        final ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            final int[][] tours = new BatchTSPSolver(solver, pool).findTours(x, y);
+            for (int k = 0; k < x.length; k++) {
+                Assertions.assertThat(tours[k])
+                        .containsExactly(solver.findTour(x[k], y[k]));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchFuturesFailIndividually() {
+        final List<MultiPoint> inputs = Arrays.asList(randomInput(10, 100), randomInput(100, 100));
+        final List<CompletableFuture<Polyline>> futures =
+                new BatchTSPSolver(new ParallelBranchAndBoundTSPSolver()).submit(inputs);
+        Assertions.assertThat(futures.get(0).join().getPointCount())
+                .isEqualTo(10);
+        Assertions.assertThatThrownBy(() -> futures.get(1).join())
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Weight of the minimum spanning tree, by Prim's algorithm in O(n^2).
+     */
+    private double primWeight(double[] x, double[] y) {
+        final int n = x.length;
+        final boolean[] inTree = new boolean[n];
+        final double[] distances = new double[n];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[0] = 0;
+        double weight = 0;
+        for (int added = 0; added < n; added++) {
+            int nearest = -1;
+            for (int i = 0; i < n; i++) {
+                if (!inTree[i] && (nearest == -1 || distances[i] < distances[nearest])) {
+                    nearest = i;
+                }
+            }
+            inTree[nearest] = true;
+            weight += distances[nearest];
+            for (int i = 0; i < n; i++) {
+                distances[i] = Math.min(distances[i], Tours.distance(x, y, nearest, i));
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Generates count distinct points with integer coordinates in [0, bound).
+     */
+    private MultiPoint randomInput(int count, int bound) {
         final MultiPoint input = new MultiPoint();
         int i = 0;
-        while (i < 8) {
-            final Point current = new Point(RANDOM.nextInt(10), RANDOM.nextInt(10));
+        while (i < count) {
+            final Point current = new Point(RANDOM.nextInt(bound), RANDOM.nextInt(bound));
             if (OperatorContains.local().execute(input, current, SPATIAL_REFERENCE, null)) {
                 // Skip points that are already in the graph
                 continue;
@@ -102,13 +585,23 @@ public class TSPSolverTest {
             input.add(current);
             i++;
         }
-        logger.debug("Random input:  {}", input);
+        return input;
+    }
 
-        final Polyline actualTour = testSolver.findTour(input);
-        final Polyline referenceTour = referenceSolver.findTour(input);
-        logger.info("{} test tour {}:  {}", testSolver.getClass().getSimpleName(), actualTour.calculateLength2D(), actualTour);
-        logger.info("{} reference tour {}:  {}", referenceSolver.getClass().getSimpleName(), referenceTour.calculateLength2D(), referenceTour);
-        Assertions.assertThat(actualTour.calculateLength2D())
-                .isGreaterThanOrEqualTo(referenceTour.calculateLength2D());
+    /**
+     * Asserts that the tour visits each of the n points exactly once.  Unlike containsExactlyInAnyOrder, this takes
+     * linear time, so it works on the large inputs too.
+     */
+    private void assertPermutation(int[] tour, int n) {
+        Assertions.assertThat(tour)
+                .hasSize(n);
+        final boolean[] visited = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            final int point = tour[i];
+            if (point < 0 || point >= n || visited[point]) {
+                Assertions.fail("Point " + point + " at position " + i + " is out of range or already visited");
+            }
+            visited[point] = true;
+        }
     }
 }
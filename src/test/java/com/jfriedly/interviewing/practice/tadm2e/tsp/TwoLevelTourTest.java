@@ -0,0 +1,109 @@
+package com.jfriedly.interviewing.practice.tadm2e.tsp;
+
+import org.assertj.core.api.Assertions;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public class TwoLevelTourTest {
+
+    private static final Random RANDOM = new Random();
+
+    @DataProvider
+    public Object[][] sizeProvider() {
+        return new Object[][] {
+                { 5 },
+                { 17 },
+                { 100 },
+                { 1000 },
+        };
+    }
+
+    /**
+     * Applies random 2-opt moves to both a {@link TwoLevelTour} and a plain array, reversing the same path in each,
+     * and checks that they always agree on every point's neighbors and on the order of random triples of points.
+     */
+    @Test(dataProvider = "sizeProvider", invocationCount = 5)
+    public void testRandomMovesAgainstArray(int n) {
+        final int[] reference = new int[n];
+        for (int i = 0; i < n; i++) {
+            reference[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            final int j = RANDOM.nextInt(i + 1);
+            final int temp = reference[i];
+            reference[i] = reference[j];
+            reference[j] = temp;
+        }
+        final TwoLevelTour tour = new TwoLevelTour(reference);
+        final int[] positions = new int[n];
+
+        for (int round = 0; round < 2000; round++) {
+            for (int i = 0; i < n; i++) {
+                positions[reference[i]] = i;
+            }
+            final int a = RANDOM.nextInt(n);
+            final int c = RANDOM.nextInt(n);
+            final boolean forward = RANDOM.nextBoolean();
+            final int b = forward ? reference[(positions[a] + 1) % n] : reference[(positions[a] + n - 1) % n];
+            final int d = forward ? reference[(positions[c] + 1) % n] : reference[(positions[c] + n - 1) % n];
+            if (a == c || b == c || a == d) {
+                continue;
+            }
+            tour.move(a, b, c, d);
+            if (forward) {
+                reverse(reference, positions[b], positions[c]);
+            } else {
+                reverse(reference, positions[c], positions[b]);
+            }
+
+            for (int i = 0; i < n; i++) {
+                positions[reference[i]] = i;
+            }
+            for (int point = 0; point < n; point++) {
+                final int next = reference[(positions[point] + 1) % n];
+                final int previous = reference[(positions[point] + n - 1) % n];
+                // The two-level tour may have reversed the complementary path instead, which flips the orientation
+                if (tour.next(point) == next) {
+                    Assertions.assertThat(tour.previous(point)).isEqualTo(previous);
+                } else {
+                    Assertions.assertThat(tour.next(point)).isEqualTo(previous);
+                    Assertions.assertThat(tour.previous(point)).isEqualTo(next);
+                }
+            }
+            final boolean sameOrientation = tour.next(reference[0]) == reference[1 % n];
+            for (int i = 0; i < 10; i++) {
+                final int first = RANDOM.nextInt(n);
+                final int second = RANDOM.nextInt(n);
+                final int third = RANDOM.nextInt(n);
+                final boolean expected = sameOrientation
+                        ? between(positions, n, first, second, third)
+                        : between(positions, n, third, second, first);
+                Assertions.assertThat(tour.between(first, second, third))
+                        .isEqualTo(expected);
+            }
+        }
+    }
+
+    /**
+     * Reverses reference[from, to], wrapping around the end of the array if necessary.
+     */
+    private void reverse(int[] reference, int from, int to) {
+        final int n = reference.length;
+        int length = (to - from + n) % n + 1;
+        for (int i = 0; i < length / 2; i++) {
+            final int left = (from + i) % n;
+            final int right = (to - i + n) % n;
+            final int temp = reference[left];
+            reference[left] = reference[right];
+            reference[right] = temp;
+        }
+    }
+
+    private boolean between(int[] positions, int n, int a, int b, int c) {
+        final int fromA = (positions[b] - positions[a] + n) % n;
+        final int toC = (positions[c] - positions[a] + n) % n;
+        return fromA <= toC;
+    }
+}